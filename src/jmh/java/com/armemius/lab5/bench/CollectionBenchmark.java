@@ -0,0 +1,108 @@
+package com.armemius.lab5.bench;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.io.OutputFlow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures operations of {@link CollectionManager} on collections of
+ * different sizes, changes made by <b>add</b> and <b>remove</b> are undone
+ * outside of the measurement, so the size stays the same
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollectionBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private final SplittableRandom random = new SplittableRandom(Fixtures.SEED + 1);
+    private StudyGroup middle;
+    private StudyGroup pending;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        var groups = Fixtures.fill(size);
+        middle = groups.get(size / 2);
+    }
+
+    @State(Scope.Thread)
+    public static class Insertion {
+        private StudyGroup group;
+
+        @Setup(Level.Invocation)
+        public void create() {
+            group = Fixtures.group(Fixtures.SEED + 2);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            var added = group;
+            CollectionManager.remove(it -> it == added);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Removal {
+        private StudyGroup group;
+
+        @Setup
+        public void select(CollectionBenchmark benchmark) {
+            group = benchmark.middle;
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            CollectionManager.add(group);
+        }
+    }
+
+    @Benchmark
+    public void add(Insertion insertion) {
+        CollectionManager.add(insertion.group);
+    }
+
+    @Benchmark
+    public int genId() {
+        return CollectionManager.genId();
+    }
+
+    @Benchmark
+    public int remove(Removal removal) {
+        var group = removal.group;
+        return CollectionManager.remove(it -> it == group);
+    }
+
+    @Benchmark
+    public int countAvgMarkDelta() {
+        return CollectionManager.countAvgMarkDelta(random.nextDouble(2, 5), 0.05);
+    }
+
+    @Benchmark
+    public int filterContent(Blackhole blackhole) {
+        return drain(CollectionManager.filterContent("GROUP_NAME12"), blackhole);
+    }
+
+    @Benchmark
+    public int filterContentRegex(Blackhole blackhole) {
+        return drain(CollectionManager.filterContentRegex("GROUP_NAME1[0-9]"), blackhole);
+    }
+
+    /**
+     * Requests all the published elements at once, as unbounded output does
+     */
+    private static int drain(Flow.Publisher<StudyGroup> publisher, Blackhole blackhole) {
+        int[] count = {0};
+        new OutputFlow<StudyGroup>(publisher, group -> {
+            blackhole.consume(group);
+            ++count[0];
+        }, () -> {}).request(Long.MAX_VALUE);
+        return count[0];
+    }
+}
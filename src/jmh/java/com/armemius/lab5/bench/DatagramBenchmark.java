@@ -0,0 +1,124 @@
+package com.armemius.lab5.bench;
+
+import com.armemius.lab5.ParserRegistry;
+import com.armemius.lab5.commands.TreeCommandParser;
+import com.armemius.lab5.commands.exceptions.CommandBuildException;
+import com.armemius.lab5.net.DatagramRequest;
+import com.armemius.lab5.net.DatagramResponse;
+import com.armemius.lab5.net.DatagramServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback benchmark of {@link DatagramServer}: every thread is a client
+ * that sends a binary request and waits for all the chunks of the response,
+ * missing chunks are fetched by resending the request with the same id.
+ * <b>requests</b> measures requests per second, <b>latency</b> gives
+ * the distribution of round trip time with p99
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class DatagramBenchmark {
+    private static final long RETRY_TIMEOUT = 200;
+
+    private DatagramServer server;
+    private InetSocketAddress address;
+
+    @State(Scope.Thread)
+    public static class Client {
+        private final ByteBuffer request = ByteBuffer.allocate(DatagramResponse.MAX_DATAGRAM);
+        private final ByteBuffer response = ByteBuffer.allocate(DatagramResponse.MAX_DATAGRAM);
+        private DatagramChannel channel;
+        private Selector selector;
+        private long id = 0;
+
+        @Setup
+        public void connect(DatagramBenchmark benchmark) throws IOException {
+            channel = DatagramChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, 1 << 22);
+            channel.connect(benchmark.address);
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+
+        @TearDown
+        public void disconnect() throws IOException {
+            selector.close();
+            channel.close();
+        }
+
+        int call(String command, List<String> args, String params) throws IOException {
+            long requestId = ++id;
+            var received = new BitSet();
+            int count = -1;
+            while (true) {
+                // padded request lets the server send up to three full chunks at once
+                request.clear();
+                new DatagramRequest(requestId, command, args, params, received.nextClearBit(0))
+                        .encode(request, DatagramResponse.MAX_DATAGRAM);
+                channel.write(request.flip());
+                while (selector.select(RETRY_TIMEOUT) > 0) {
+                    selector.selectedKeys().clear();
+                    while (channel.read(response.clear()) > 0) {
+                        if (DatagramResponse.id(response) != requestId)
+                            continue;
+                        if ((DatagramResponse.status(response)
+                                & (DatagramResponse.STATUS_EXPIRED | DatagramResponse.STATUS_TOO_SMALL)) != 0)
+                            throw new IOException("Response of request " + requestId + " can't be fetched");
+                        count = DatagramResponse.count(response);
+                        received.set(DatagramResponse.index(response));
+                        if (received.cardinality() == count)
+                            return count;
+                    }
+                }
+            }
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        server = new DatagramServer(new InetSocketAddress("localhost", 0), (inputHandler, outputHandler) -> {
+            var parser = new TreeCommandParser(inputHandler, outputHandler);
+            try {
+                ParserRegistry.buildTree(parser);
+            } catch (CommandBuildException e) {
+                throw new RuntimeException(e);
+            }
+            return parser;
+        });
+        address = new InetSocketAddress("localhost", server.bind());
+        Thread thread = new Thread(server, "datagram-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int requests(Client client) throws IOException {
+        return client.call("count", List.of("3.5", "1"), "");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency(Client client) throws IOException {
+        return client.call("count", List.of("3.5", "1"), "");
+    }
+}
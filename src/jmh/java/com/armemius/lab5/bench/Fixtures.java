@@ -0,0 +1,36 @@
+package com.armemius.lab5.bench;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.collection.generator.DatasetGenerator;
+import com.armemius.lab5.collection.generator.DatasetSpec;
+
+import java.util.List;
+
+/**
+ * Collections for benchmarks, values have the same distribution as
+ * <b>insert --random</b>, but they depend only on the seed
+ */
+final class Fixtures {
+    static final long SEED = 5;
+
+    private Fixtures() {}
+
+    /**
+     * Replaces the collection with <i>size</i> generated groups with ids from 1 to <i>size</i>
+     * @return Added groups in order of ids
+     */
+    static List<StudyGroup> fill(int size) {
+        CollectionManager.clear();
+        List<StudyGroup> groups = new DatasetGenerator(new DatasetSpec(SEED)).generate(size);
+        CollectionManager.addAll(groups);
+        return groups;
+    }
+
+    /**
+     * @return Group without id, the same for the same seed
+     */
+    static StudyGroup group(long seed) {
+        return new DatasetGenerator(new DatasetSpec(seed)).next();
+    }
+}
@@ -0,0 +1,207 @@
+package com.armemius.lab5.bench;
+
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.TreeCommandParser;
+import com.armemius.lab5.commands.exceptions.CommandBuildException;
+import com.armemius.lab5.commands.nodes.CommandNode;
+import com.armemius.lab5.commands.nodes.DataNode;
+import com.armemius.lab5.commands.nodes.Node;
+import com.armemius.lab5.commands.nodes.VarargNode;
+import com.armemius.lab5.commands.params.Param;
+import com.armemius.lab5.commands.params.ParamSet;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.tasks.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many lines per second {@link TreeCommandParser} parses,
+ * compared with the split-based parser it replaced
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParserBenchmark {
+    private static final String[] lines = {
+            "help",
+            "show",
+            "insert --random",
+            "count 3.5 0.25",
+            "remove 10 --lower --students",
+            "remove 4 -gs",
+            "filter GROUP_NAME1 -r",
+            "update 15",
+            "top 10 averageMark --asc",
+            "query studentsCount > 20 and semesterEnum = THIRD and groupAdmin.nationality = CHINA"
+    };
+
+    @Parametrized(
+            params = {
+                    @Param(letter = "h", name = "help"),
+                    @Param(letter = "r", name = "random"),
+                    @Param(letter = "l", name = "lower"),
+                    @Param(letter = "g", name = "greater"),
+                    @Param(letter = "s", name = "students"),
+                    @Param(letter = "a", name = "asc")
+            }
+    )
+    private static class NoopTask implements Task {
+        @Override
+        public void execute(CommandContext context) {}
+    }
+
+    private static class NoopHandler implements InputHandler, OutputHandler {
+        @Override
+        public String get() {
+            return "";
+        }
+
+        @Override
+        public boolean hasNextLine() {
+            return false;
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public void put(String line) {}
+
+        @Override
+        public void hold(String line) {}
+    }
+
+    /**
+     * Copy of the parser that splits lines with regex, scans children
+     * of the node linearly and validates parameters with annotation reflection
+     */
+    private static class LegacyParser {
+        private final List<Node> root = new ArrayList<>();
+        private final NoopHandler handler = new NoopHandler();
+
+        void parse(String raw) {
+            raw = raw.trim();
+            String[] command = raw.split("\\s+");
+            int depth = 0;
+            List<Node> tmp = root;
+            boolean found;
+            Node lastNode = null;
+            List<String> args = new ArrayList<>();
+            Set<String> params = new HashSet<>();
+            while (depth < command.length) {
+                found = false;
+                if (command[depth].charAt(0) == '-') {
+                    if (command[depth].charAt(1) == '-') {
+                        params.add(command[depth].substring(2));
+                    } else {
+                        for (String jt : command[depth].substring(1).split("")) {
+                            params.add(jt);
+                        }
+                    }
+                    depth++;
+                    continue;
+                }
+                for (Node it : tmp) {
+                    if (it instanceof CommandNode) {
+                        if (command[depth].equals(it.getContent())) {
+                            lastNode = it;
+                            found = true;
+                            depth++;
+                            tmp = it.getChildren();
+                            break;
+                        }
+                    } else {
+                        args.add(command[depth]);
+                        lastNode = it;
+                        found = true;
+                        depth++;
+                        tmp = it.getChildren();
+                        break;
+                    }
+                }
+                if (!found)
+                    throw new IllegalStateException(command[depth]);
+            }
+            validate(lastNode, params);
+            lastNode.run(new CommandContext(raw, args, ParamSet.EMPTY, handler, handler, null));
+        }
+
+        private void validate(Node node, Set<String> raw) {
+            var annotation = NoopTask.class.getAnnotation(Parametrized.class);
+            Set<String> baked = new HashSet<>();
+            for (var it : annotation.params()) {
+                if (raw.contains(it.letter())) {
+                    if (raw.contains(it.name()) || baked.contains(it.letter()))
+                        throw new IllegalStateException("Duplicate parameters met");
+                    baked.add(it.letter());
+                    raw.remove(it.letter());
+                } else if (raw.contains(it.name())) {
+                    if (baked.contains(it.letter()))
+                        throw new IllegalStateException("Duplicate parameters met");
+                    baked.add(it.letter());
+                    raw.remove(it.name());
+                }
+            }
+            if (!raw.isEmpty())
+                throw new IllegalStateException("Unknown parameter options");
+            for (var it : annotation.incompatible()) {
+                int counter = 0;
+                for (var jt : it.value()) {
+                    if (baked.contains(jt))
+                        counter++;
+                }
+                if (counter > 1)
+                    throw new IllegalStateException("Incompatible parameters met");
+            }
+            raw.addAll(baked);
+        }
+    }
+
+    private TreeCommandParser parser;
+    private LegacyParser legacyParser;
+
+    @Setup
+    public void setup() throws CommandBuildException {
+        var handler = new NoopHandler();
+        var task = new NoopTask();
+        parser = new TreeCommandParser(handler, handler);
+        legacyParser = new LegacyParser();
+        for (var it : new String[]{"help", "show", "insert", "info", "clear", "save", "exit", "getenv"}) {
+            add(new CommandNode(it).executes(task));
+        }
+        for (var it : new String[]{"update", "remove", "filter", "execute", "replace", "fill", "stats"}) {
+            add(new CommandNode(it).then(new DataNode().executes(task)).executes(task));
+        }
+        add(new CommandNode("count").then(new DataNode().then(new DataNode().executes(task)).executes(task)));
+        add(new CommandNode("top").then(new DataNode().then(new DataNode().executes(task))));
+        add(new CommandNode("query").then(new VarargNode().executes(task)));
+    }
+
+    private void add(Node node) throws CommandBuildException {
+        parser.add(node);
+        legacyParser.root.add(node);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void treeParser() {
+        for (var it : lines) {
+            parser.parse(it);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void legacyParser() {
+        for (var it : lines) {
+            legacyParser.parse(it);
+        }
+    }
+}
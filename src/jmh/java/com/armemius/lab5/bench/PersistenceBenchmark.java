@@ -0,0 +1,66 @@
+package com.armemius.lab5.bench;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.exceptions.CollectionFileException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <b>save</b> and <b>load</b> of the collection
+ * through a temporary data file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class PersistenceBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException, CollectionFileException {
+        file = Files.createTempFile("lab5-bench", ".yaml");
+        CollectionManager.setPath(file.toString());
+        Fixtures.fill(size);
+        CollectionManager.save();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @State(Scope.Thread)
+    public static class Cleared {
+        @Setup(Level.Invocation)
+        public void clear() {
+            // loaded ids must not be taken by the groups of the previous load
+            CollectionManager.clear();
+        }
+    }
+
+    @Benchmark
+    public void save() throws CollectionFileException {
+        CollectionManager.save();
+    }
+
+    @Benchmark
+    public long load(Cleared cleared) {
+        CollectionManager.load();
+        return CollectionManager.getElementsCount();
+    }
+
+    @Benchmark
+    public long roundTrip(Cleared cleared) throws CollectionFileException {
+        CollectionManager.load();
+        CollectionManager.save();
+        return CollectionManager.getElementsCount();
+    }
+}
@@ -0,0 +1,115 @@
+package com.armemius.lab5.bench;
+
+import com.armemius.lab5.ParserRegistry;
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.TreeCommandParser;
+import com.armemius.lab5.commands.exceptions.CommandBuildException;
+import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.net.CommandServer;
+import com.armemius.lab5.net.Server;
+import com.armemius.lab5.net.ThreadedCommandServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Load test of {@link CommandServer} and {@link ThreadedCommandServer}
+ * over loopback: every thread is a client that sends a command and waits
+ * for the prompt, while the server also keeps a number of idle connections
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ServerBenchmark {
+    private static final ByteBuffer command = ByteBuffer.wrap("info\n".getBytes(StandardCharsets.UTF_8));
+
+    @Param({"selector", "thread"})
+    public String serverType;
+
+    @Param({"0", "1000"})
+    public int idleConnections;
+
+    private Server server;
+    private InetSocketAddress address;
+    private final List<SocketChannel> idle = new ArrayList<>();
+
+    @State(Scope.Thread)
+    public static class Client {
+        private SocketChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+        @Setup
+        public void connect(ServerBenchmark benchmark) throws IOException {
+            channel = SocketChannel.open(benchmark.address);
+            awaitPrompt();
+        }
+
+        @TearDown
+        public void disconnect() throws IOException {
+            channel.close();
+        }
+
+        void awaitPrompt() throws IOException {
+            while (true) {
+                buffer.clear();
+                int count = channel.read(buffer);
+                if (count < 0)
+                    throw new IOException("Server closed the connection");
+                if (count >= 2 && buffer.get(count - 2) == '$' && buffer.get(count - 1) == ' ')
+                    return;
+            }
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        BiFunction<InputHandler, OutputHandler, CommandParser> parsers = (inputHandler, outputHandler) -> {
+            var parser = new TreeCommandParser(inputHandler, outputHandler);
+            try {
+                ParserRegistry.buildTree(parser);
+            } catch (CommandBuildException e) {
+                throw new RuntimeException(e);
+            }
+            return parser;
+        };
+        var bindAddress = new InetSocketAddress("localhost", 0);
+        server = serverType.equals("thread")
+                ? new ThreadedCommandServer(bindAddress, parsers)
+                : new CommandServer(bindAddress, parsers);
+        address = new InetSocketAddress("localhost", server.bind());
+        Thread thread = new Thread(server, "server-event-loop");
+        thread.setDaemon(true);
+        thread.start();
+        for (int it = 0; it < idleConnections; ++it) {
+            idle.add(SocketChannel.open(address));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (var it : idle) {
+            it.close();
+        }
+        idle.clear();
+        server.close();
+    }
+
+    @Benchmark
+    public void roundTrip(Client client) throws IOException {
+        var request = command.duplicate();
+        while (request.hasRemaining()) {
+            client.channel.write(request);
+        }
+        client.awaitPrompt();
+    }
+}
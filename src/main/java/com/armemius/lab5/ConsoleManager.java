@@ -1,10 +1,13 @@
 package com.armemius.lab5;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.Transaction;
 import com.armemius.lab5.collection.data.*;
 import com.armemius.lab5.collection.exceptions.CollectionFileException;
 import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.CommandLine;
 import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.CompiledCommand;
 import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
 import com.armemius.lab5.commands.nodes.Node;
@@ -17,54 +20,292 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.function.Consumer;
 
 /**
- * Singleton class responsible for interactions between user and computer
- * Generates commands tree and then starts console manager that
- * handles all the interactions between user and machine
+ * Class responsible for interactions between user and computer,
+ * every session (console, batch or network connection) has its own
+ * manager with its own parser and state, so sessions don't affect each other
+ *
+ * Tasks reach the manager of their session with the static methods,
+ * manager is bound to the thread while it runs a command together
+ * with the transaction of the session, see {@link CollectionManager#begin()}
  * @author Stepanov Arseniy P3109<br>
  */
 public class ConsoleManager {
-    private static boolean isRunning = false;
-    private static CommandParser parser = null;
+    private static final ThreadLocal<ConsoleManager> current = new ThreadLocal<>();
 
+    private final InputHandler inputHandler;
+    private final OutputHandler outputHandler;
+    private final CommandParser parser;
+    private final boolean isBatch;
+    private volatile boolean isRunning = true;
+    private Transaction transaction = null;
+    private List<String> commands = List.of();
+    private int next = 0;
 
-    private ConsoleManager() {}
+    /**
+     * Creates manager of one session
+     * @param inputHandler Class that handles logic for input, read more {@link InputHandler}
+     * @param outputHandler Class that handles logic for output, read more {@link OutputHandler}
+     * @param parser Class that describes how the parsing will be done, read more {@link CommandParser}
+     * @param isBatch True if commands shouldn't wait for confirmations
+     */
+    public ConsoleManager(InputHandler inputHandler, OutputHandler outputHandler, CommandParser parser, boolean isBatch) {
+        this.inputHandler = inputHandler;
+        this.outputHandler = outputHandler;
+        this.parser = parser;
+        this.isBatch = isBatch;
+    }
 
     /**
-     * Starts the console manager, to start it you
+     * Starts the interactive session, to start it you
      * need to specify following parameters:
      * @param inputHandler Class that handles logic for input, read more {@link InputHandler}
      * @param outputHandler Class that handles logic for output, read more {@link OutputHandler}
      * @param parser Class that describes how the parsing will be done, read more {@link CommandParser}
-     *
-     * Console manager has only one instance, that means you need to stop
-     * the manager to run it with new parameters
      */
     public static void start(InputHandler inputHandler, OutputHandler outputHandler, CommandParser parser) {
-        if (isRunning)
-            return;
-        ConsoleManager.parser = parser;
-        isRunning = true;
+        new ConsoleManager(inputHandler, outputHandler, parser, false).run();
+    }
+
+    /**
+     * Runs interactive session until input ends or <b>exit</b> is called
+     */
+    public void run() {
         outputHandler.put("Console manager initialized!\n\rType 'help' for information about commands");
         outputHandler.hold("$ ");
+        outputHandler.flush();
         while (isRunning && inputHandler.hasNextLine()) {
-            ConsoleManager.parser.parse(inputHandler.get());
-            outputHandler.hold("$ ");
+            step(inputHandler.get());
         }
+        outputHandler.flush();
         isRunning = false;
     }
 
     /**
-     * Stops running console manager instance
+     * Runs commands of one line in order and prints the prompt for the next line.
+     * Output is flushed only if the next line is not received yet, so
+     * pipelined lines are answered with one write. If the output handler keeps
+     * output of a command for later, the rest of the line is run by {@link #resume()}
+     * @param line One or several commands separated by <i>;</i>, see {@link CommandLine}
+     * @return True if session continues, false if it was stopped by a command
      */
-    public static void stop() {
-        if (!isRunning)
+    public boolean step(String line) {
+        commands = CommandLine.split(line);
+        next = 0;
+        proceed();
+        return isRunning;
+    }
+
+    /**
+     * Continues output of the command that was suspended by the output handler,
+     * then runs the rest of its line, see {@link OutputHandler#resume(boolean)}
+     * @return True if output of the line is still not complete
+     */
+    public boolean resume() {
+        var previous = bind();
+        try {
+            outputHandler.resume(false);
+        } catch (RuntimeException ex) {
+            outputHandler.put("Error while processing the command: '" + ex.getMessage() + "'");
+        } finally {
+            unbind(previous);
+        }
+        return proceed();
+    }
+
+    /**
+     * @return True if output of the last command is suspended, see {@link #resume()}
+     */
+    public boolean isSuspended() {
+        return outputHandler.isStreaming();
+    }
+
+    /**
+     * Runs remaining commands of the line, stops when the
+     * output handler keeps output of a command for later
+     * @return True if the line is suspended
+     */
+    private boolean proceed() {
+        if (outputHandler.isStreaming()) {
+            outputHandler.flush();
+            return true;
+        }
+        while (isRunning && next < commands.size()) {
+            execute(commands.get(next++));
+            if (outputHandler.isStreaming()) {
+                outputHandler.flush();
+                return true;
+            }
+        }
+        if (isRunning)
+            outputHandler.hold("$ ");
+        if (!isRunning || !inputHandler.isReady())
+            outputHandler.flush();
+        return false;
+    }
+
+    /**
+     * Runs commands in batch mode: there is no banner and no prompts,
+     * output is flushed only when the buffer is full and confirmations
+     * are given automatically (see {@link #isBatch()})
+     * @param inputHandler Source of the commands
+     * @param outputHandler Handler for the results of the commands
+     * @param parser Parser that executes the commands
+     * @param report Stream for the summary with throughput and latency
+     * @return Exit status: 0 if all the commands succeeded, 1 otherwise
+     */
+    public static int runBatch(InputHandler inputHandler, OutputHandler outputHandler, CommandParser parser, PrintStream report) {
+        return new ConsoleManager(inputHandler, outputHandler, parser, true).runBatch(report);
+    }
+
+    /**
+     * Runs the session in batch mode, see {@link #runBatch(InputHandler, OutputHandler, CommandParser, PrintStream)}
+     * @param report Stream for the summary with throughput and latency
+     * @return Exit status: 0 if all the commands succeeded, 1 otherwise
+     */
+    public int runBatch(PrintStream report) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        int failed = 0;
+        long start = System.nanoTime();
+        try {
+            while (isRunning && inputHandler.hasNextLine()) {
+                for (var command : CommandLine.split(inputHandler.get())) {
+                    if (!isRunning)
+                        break;
+                    long begin = System.nanoTime();
+                    try {
+                        if (!execute(command))
+                            ++failed;
+                    } catch (RuntimeException ex) {
+                        ++failed;
+                        report.println("Command '" + command + "' failed: " + ex);
+                    }
+                    if (count == latencies.length)
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = System.nanoTime() - begin;
+                }
+            }
+            outputHandler.flush();
+        } finally {
+            isRunning = false;
+        }
+        report(report, latencies, count, failed, System.nanoTime() - start);
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * @return True until the session is stopped
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Rolls back transaction of the session that is not committed, sessions
+     * call it when they end. Must be called from the thread that runs commands
+     * @return True if there was a transaction
+     */
+    public boolean abortTransaction() {
+        if (transaction == null)
+            return false;
+        var previous = bind();
+        try {
+            CollectionManager.rollback();
+        } finally {
+            unbind(previous);
+        }
+        return true;
+    }
+
+    /**
+     * Runs compiled command with this manager bound to the thread,
+     * prompts are not printed
+     * @param command Command to run
+     * @return True if command was executed successfully
+     */
+    public boolean execute(CompiledCommand command) {
+        var previous = bind();
+        try {
+            return parser.execute(command);
+        } finally {
+            unbind(previous);
+        }
+    }
+
+    /**
+     * Runs the command with this manager bound to the thread
+     */
+    private boolean execute(String line) {
+        var previous = bind();
+        try {
+            return parser.parse(line);
+        } finally {
+            unbind(previous);
+        }
+    }
+
+    private ConsoleManager bind() {
+        var previous = current.get();
+        if (previous != null)
+            previous.transaction = CollectionManager.getTransaction();
+        current.set(this);
+        CollectionManager.setTransaction(transaction);
+        return previous;
+    }
+
+    private void unbind(ConsoleManager previous) {
+        transaction = CollectionManager.getTransaction();
+        if (previous == null) {
+            current.remove();
+            CollectionManager.setTransaction(null);
+        } else {
+            current.set(previous);
+            CollectionManager.setTransaction(previous.transaction);
+        }
+    }
+
+    private static void report(PrintStream report, long[] latencies, int count, int failed, long total) {
+        double seconds = total / 1e9;
+        report.printf(Locale.ROOT, "Batch finished: %d command(s), %d failed in %.3f s (%.0f commands/s)%n",
+                count, failed, seconds, count / Math.max(seconds, 1e-9));
+        if (count == 0)
             return;
-        isRunning = false;
+        Arrays.sort(latencies, 0, count);
+        long sum = 0;
+        for (int it = 0; it < count; ++it) {
+            sum += latencies[it];
+        }
+        report.printf(Locale.ROOT, "Latency: avg %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                sum / 1e6 / count,
+                latencies[(int) ((count - 1) * 0.5)] / 1e6,
+                latencies[(int) ((count - 1) * 0.99)] / 1e6,
+                latencies[count - 1] / 1e6);
+    }
+
+    /**
+     * @return True if session of the running command is in batch mode,
+     * commands shouldn't wait for confirmations then
+     */
+    public static boolean isBatch() {
+        var manager = current.get();
+        return manager != null && manager.isBatch;
+    }
+
+    /**
+     * Stops the session of the running command
+     */
+    public static void stop() {
+        var manager = current.get();
+        if (manager != null)
+            manager.isRunning = false;
     }
-}
\ No newline at end of file
+}
@@ -6,13 +6,24 @@ import com.armemius.lab5.commands.TreeCommandParser;
 import com.armemius.lab5.commands.exceptions.CommandBuildException;
 import com.armemius.lab5.commands.nodes.CommandNode;
 import com.armemius.lab5.commands.nodes.DataNode;
-import com.armemius.lab5.io.console.ConsoleOutputHandler;
+import com.armemius.lab5.io.console.BufferedConsoleOutputHandler;
+import com.armemius.lab5.io.console.BufferedInputHandler;
+import com.armemius.lab5.io.FlushingInputHandler;
 import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.NoPromptOutputHandler;
 import com.armemius.lab5.io.OutputHandler;
-import com.armemius.lab5.io.console.ScannerInputHandler;
+import com.armemius.lab5.net.CommandServer;
+import com.armemius.lab5.net.DatagramServer;
+import com.armemius.lab5.net.Server;
+import com.armemius.lab5.net.ThreadedCommandServer;
 import org.javatuples.Pair;
 
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * Main class for lab 5
@@ -24,20 +35,119 @@ import java.util.ArrayList;
  * @author Stepanov Arseniy P3109
  */
 public class Lab5 {
+    private static final Set<String> SERVER_MODES = Set.of(
+            "-s", "--server", "-t", "--thread-server", "-u", "--udp-server");
+
+    /**
+     * Starts the program, following arguments are supported:
+     * <ul>
+     *     <li><b>-b / --batch [file]</b> runs commands from the file (or stdin)
+     *     without prompts and confirmations, then exits with status 0 if all the commands
+     *     succeeded or 1 otherwise, summary is printed to stderr</li>
+     *     <li><b>-s / --server [[host:]port]</b> serves commands over TCP instead of console,
+     *     default address is <i>localhost:5050</i>, see {@link CommandServer}</li>
+     *     <li><b>-t / --thread-server [[host:]port]</b> serves commands over TCP with
+     *     a thread per session, see {@link ThreadedCommandServer}</li>
+     *     <li><b>-u / --udp-server [[host:]port]</b> serves binary requests over UDP,
+     *     see {@link DatagramServer}</li>
+     * </ul>
+     * @param args Command line arguments
+     */
     public static void main(String[] args) {
-        InputHandler inputHandler = new ScannerInputHandler();
-        OutputHandler outputHandler = new ConsoleOutputHandler();
+        if (args.length > 0 && SERVER_MODES.contains(args[0])) {
+            serve(args[0], args.length > 1 ? args[1] : String.valueOf(CommandServer.DEFAULT_PORT));
+            return;
+        }
+        boolean batch = args.length > 0 && (args[0].equals("-b") || args[0].equals("--batch"));
+        InputHandler inputHandler;
+        if (batch && args.length > 1) {
+            try {
+                inputHandler = new BufferedInputHandler(new FileInputStream(args[1]), true);
+            } catch (FileNotFoundException e) {
+                System.err.println("Unable to open '" + args[1] + "'");
+                System.exit(2);
+                return;
+            }
+        } else {
+            inputHandler = new BufferedInputHandler();
+        }
+        OutputHandler outputHandler = batch
+                ? new NoPromptOutputHandler(new BufferedConsoleOutputHandler())
+                : new BufferedConsoleOutputHandler();
+        if (!batch)
+            inputHandler = new FlushingInputHandler(inputHandler, outputHandler);
+        if (!batch && CollectionManager.isDefaultPath()) {
+            outputHandler.put("""
+
+                    ###############! WARNING !###############
+                    Environment variable 'LAB_5_PATH' is not set
+                    Collection manager will use default path '%s'
+                    #########################################
+                    """.formatted(CollectionManager.getPath()));
+        }
         CollectionManager.load();
+        int status = 0;
         try {
             TreeCommandParser parser = new TreeCommandParser(inputHandler, outputHandler);
             ParserRegistry.buildTree(parser);
-            ConsoleManager.start(inputHandler, outputHandler, parser);
+            if (batch)
+                status = ConsoleManager.runBatch(inputHandler, outputHandler, parser, System.err);
+            else
+                ConsoleManager.start(inputHandler, outputHandler, parser);
         }
         catch (CommandBuildException e) {
             throw new RuntimeException(e);
         }
         finally {
+            outputHandler.flush();
             inputHandler.close();
         }
+        if (status != 0)
+            System.exit(status);
+    }
+
+    /**
+     * Loads the collection and runs {@link CommandServer} until the process is stopped
+     * @param mode Server option from the command line
+     * @param address Address in <i>[host:]port</i> form
+     */
+    private static void serve(String mode, String address) {
+        int colon = address.lastIndexOf(':');
+        String host = colon < 0 ? "localhost" : address.substring(0, colon);
+        int port;
+        try {
+            port = Integer.parseInt(address.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            System.err.println("Incorrect port in '" + address + "'");
+            System.exit(2);
+            return;
+        }
+        if (CollectionManager.isDefaultPath())
+            System.out.println("Environment variable 'LAB_5_PATH' is not set, using '" + CollectionManager.getPath() + "'");
+        CollectionManager.load();
+        var socketAddress = new InetSocketAddress(host, port);
+        Server server = switch (mode) {
+            case "-t", "--thread-server" -> new ThreadedCommandServer(socketAddress, Lab5::createParser);
+            case "-u", "--udp-server" -> new DatagramServer(socketAddress, Lab5::createParser);
+            default -> new CommandServer(socketAddress, Lab5::createParser);
+        };
+        try {
+            System.out.println("Listening on " + host + ":" + server.bind());
+        } catch (IOException e) {
+            System.err.println("Unable to listen on '" + address + "': " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        server.run();
+    }
+
+    private static CommandParser createParser(InputHandler inputHandler, OutputHandler outputHandler) {
+        var parser = new TreeCommandParser(inputHandler, outputHandler);
+        try {
+            ParserRegistry.buildTree(parser);
+        } catch (CommandBuildException e) {
+            throw new RuntimeException(e);
+        }
+        return parser;
     }
 }
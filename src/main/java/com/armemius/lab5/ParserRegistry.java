@@ -4,6 +4,7 @@ import com.armemius.lab5.commands.TreeCommandParser;
 import com.armemius.lab5.commands.exceptions.CommandBuildException;
 import com.armemius.lab5.commands.nodes.CommandNode;
 import com.armemius.lab5.commands.nodes.DataNode;
+import com.armemius.lab5.commands.nodes.VarargNode;
 import com.armemius.lab5.tasks.*;
 
 /**
@@ -32,6 +33,14 @@ public class ParserRegistry {
         var showTask = new ShowTask();
         var updateTask = new UpdateTask();
         var fillTask = new FillTask();
+        var queryTask = new QueryTask();
+        var topTask = new TopTask();
+        var statsTask = new StatsTask();
+        var groupByTask = new GroupByTask();
+        var beginTask = new BeginTask();
+        var commitTask = new CommitTask();
+        var rollbackTask = new RollbackTask();
+        var metricsTask = new MetricsTask();
         parser.add(
                 new CommandNode("help")
                         .executes(helpTask)
@@ -43,12 +52,20 @@ public class ParserRegistry {
                         .executes(showTask)
         ).add(
                 new CommandNode("insert")
+                        .then(
+                                new VarargNode()
+                                        .executes(insertTask)
+                        )
                         .executes(insertTask)
         ).add(
                 new CommandNode("update")
                         .then(
                                 new DataNode()
                                         .executes(updateTask)
+                                        .then(
+                                                new VarargNode()
+                                                        .executes(updateTask)
+                                        )
                         )
                         .executes(updateTask)
         ).add(
@@ -77,7 +94,12 @@ public class ParserRegistry {
         ).add(
                 new CommandNode("replace")
                         .then(
-                                new DataNode().executes(replaceTask)
+                                new DataNode()
+                                        .executes(replaceTask)
+                                        .then(
+                                                new VarargNode()
+                                                        .executes(replaceTask)
+                                        )
                         )
                         .executes(replaceTask)
         ).add(
@@ -104,9 +126,61 @@ public class ParserRegistry {
         ).add(
                 new CommandNode("fill")
                         .then(
-                                new DataNode().executes(fillTask)
+                                new VarargNode().executes(fillTask)
                         )
                         .executes(fillTask)
+        ).add(
+                new CommandNode("query")
+                        .then(
+                                new VarargNode()
+                                        .executes(queryTask)
+                        )
+                        .executes(queryTask)
+        ).add(
+                new CommandNode("top")
+                        .then(
+                                new DataNode()
+                                        .then(
+                                                new DataNode()
+                                                        .executes(topTask)
+                                        )
+                                        .executes(topTask)
+                        )
+                        .executes(topTask)
+        ).add(
+                new CommandNode("stats")
+                        .then(
+                                new DataNode()
+                                        .executes(statsTask)
+                        )
+                        .executes(statsTask)
+        ).add(
+                new CommandNode("groupby")
+                        .then(
+                                new DataNode()
+                                        .then(
+                                                new DataNode()
+                                                        .executes(groupByTask)
+                                        )
+                                        .executes(groupByTask)
+                        )
+                        .executes(groupByTask)
+        ).add(
+                new CommandNode("begin")
+                        .executes(beginTask)
+        ).add(
+                new CommandNode("commit")
+                        .executes(commitTask)
+        ).add(
+                new CommandNode("rollback")
+                        .executes(rollbackTask)
+        ).add(
+                new CommandNode("metrics")
+                        .then(
+                                new DataNode()
+                                        .executes(metricsTask)
+                        )
+                        .executes(metricsTask)
         );
     }
 }
@@ -4,12 +4,24 @@ import com.armemius.lab5.collection.data.Person;
 import com.armemius.lab5.collection.data.StudyGroup;
 import com.armemius.lab5.collection.exceptions.CollectionFileException;
 import com.armemius.lab5.collection.exceptions.CollectionRuntimeException;
+import com.armemius.lab5.collection.index.AggregateCube;
+import com.armemius.lab5.collection.index.CollectionIndex;
+import com.armemius.lab5.collection.index.EnumBitmapIndex;
+import com.armemius.lab5.collection.index.FieldStatistics;
+import com.armemius.lab5.collection.index.SortedIndex;
+import com.armemius.lab5.collection.query.Plan;
+import com.armemius.lab5.collection.query.Query;
+import com.armemius.lab5.collection.query.QueryPlanner;
 import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.commands.metrics.CommandTrace;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DatabindException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
@@ -17,8 +29,17 @@ import java.io.File;
 import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.TreeMap;
+import java.util.concurrent.Flow;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -30,29 +51,56 @@ import java.util.regex.PatternSyntaxException;
  * On initialization, it sets up serializer
  * and gets environment variable '<i>LAB_5_PATH</i>' that points to
  * file with data
+ *
+ * Changes can be grouped into transactions with {@link #begin()}, {@link #commit()}
+ * and {@link #rollback()}, transaction belongs to the thread that started it
+ * (console manager moves it between threads together with the session)
+ *
+ * Operations report their time and number of touched elements to
+ * {@link CommandTrace} of the running command
  */
 public class CollectionManager {
     private CollectionManager() {}
 
     private static TreeMap<Integer, StudyGroup> storage;
+    private static final String DEFAULT_PATH = "./data.yaml";
     private static String path;
+    private static boolean defaultPath = false;
     private static final ZonedDateTime creationTime;
     private static final ObjectMapper mapper;
+    private static final Map<GroupField, SortedIndex> sortedIndexes = new EnumMap<>(GroupField.class);
+    private static final Map<GroupField, EnumBitmapIndex> bitmapIndexes = new EnumMap<>(GroupField.class);
+    private static final Map<GroupField, AggregateCube> cubes = new EnumMap<>(GroupField.class);
+    private static final Map<GroupField, FieldStatistics> statistics = new EnumMap<>(GroupField.class);
+    private static final List<CollectionIndex> indexes = new ArrayList<>();
+    private static final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
+    private static final BitSet occupied = new BitSet();
+    private static int freeHint = 1;
 
     static {
         storage = new TreeMap<>();
+        for (var it : List.of(GroupField.STUDENTS_COUNT, GroupField.EXPELLED_STUDENTS, GroupField.AVERAGE_MARK)) {
+            var index = new SortedIndex(it);
+            sortedIndexes.put(it, index);
+            indexes.add(index);
+        }
+        statistics.put(GroupField.STUDENTS_COUNT, new FieldStatistics(sortedIndexes.get(GroupField.STUDENTS_COUNT), 5));
+        statistics.put(GroupField.EXPELLED_STUDENTS, new FieldStatistics(sortedIndexes.get(GroupField.EXPELLED_STUDENTS), 1));
+        statistics.put(GroupField.AVERAGE_MARK, new FieldStatistics(sortedIndexes.get(GroupField.AVERAGE_MARK), 0.5));
+        indexes.addAll(statistics.values());
+        for (var it : List.of(GroupField.SEMESTER, GroupField.ADMIN_EYE_COLOR, GroupField.ADMIN_HAIR_COLOR, GroupField.ADMIN_NATIONALITY)) {
+            var index = new EnumBitmapIndex(it);
+            bitmapIndexes.put(it, index);
+            indexes.add(index);
+            var cube = new AggregateCube(it, List.of(GroupField.STUDENTS_COUNT, GroupField.EXPELLED_STUDENTS, GroupField.AVERAGE_MARK));
+            cubes.put(it, cube);
+            indexes.add(cube);
+        }
         creationTime = ZonedDateTime.now();
         path = System.getenv("LAB_5_PATH");
         if (path == null) {
-            System.out.println("""
-
-                    ###############! WARNING !###############
-                    Environment variable 'LAB_5_PATH' is not set
-                    Collection manager will use default path './data.yaml'
-                    #########################################
-                    
-                    """);
-            path = "./data.yaml";
+            path = DEFAULT_PATH;
+            defaultPath = true;
         }
         mapper = new ObjectMapper(new YAMLFactory());
         mapper.registerModule(new JavaTimeModule());
@@ -66,7 +114,8 @@ public class CollectionManager {
      * @return Returns True if element is in the collection, otherwise returns False
      */
     public static boolean checkId(int id) {
-        return storage.containsKey(id);
+        var overlay = dirty();
+        return overlay == null ? storage.containsKey(id) : overlay.contains(storage, id);
     }
 
     /**
@@ -85,45 +134,104 @@ public class CollectionManager {
         return creationTime;
     }
 
+    /**
+     * @return True if '<i>LAB_5_PATH</i>' is not set and collection
+     * uses default path
+     */
+    public static boolean isDefaultPath() {
+        return defaultPath;
+    }
+
+    /**
+     * @return Path to the file with data
+     */
+    public static String getPath() {
+        return path;
+    }
+
+    /**
+     * Changes the file with data, used by tools and benchmarks
+     * that keep their data apart from the user's one
+     * @param value Path to the file with data
+     */
+    public static void setPath(String value) {
+        path = value;
+        defaultPath = false;
+    }
+
     /**
      * Method that returns number of elements inside collection
      * @return Number of elements inside collection
      */
     public static long getElementsCount() {
-        return storage.size();
+        var overlay = dirty();
+        return overlay == null ? storage.size() : overlay.size(storage);
     }
 
     /**
      * Loads collection from file
      */
     public static void load() {
+        if (transaction.get() != null)
+            throw new CommandRuntimeException("Collection can't be loaded inside a transaction");
         try {
             storage = mapper.readValue(new File(path), new TypeReference<>() {});
             for (var it : storage.entrySet()) {
-                if (it.getKey() != it.getValue().getId())
+                if (!it.getKey().equals(it.getValue().getId()))
                     throw new CollectionRuntimeException("Broken data");
             }
         }
         catch (CollectionRuntimeException | DatabindException e) {
-            System.out.println("'" + path + "' contains broken data");
+            System.err.println("'" + path + "' contains broken data");
             storage.clear();
             StudyGroup.getUsedIds().clear();
         }
         catch (IOException e) {
-            System.out.println("Unable to load '" + path + "' file with data\n" + e.getMessage());
+            System.err.println("Unable to load '" + path + "' file with data\n" + e.getMessage());
         }
+        rebuildIndexes();
     }
 
     /**
-     * Saves collection to file
+     * Saves collection to file, changes of the transaction
+     * that is not committed yet are not saved
      * @throws CollectionFileException Throws exception if there were troubles with writing the collection to file
      */
     public static void save() throws CollectionFileException {
+        long trace = CommandTrace.enterCollection();
         try {
             mapper.writeValue(new File(path), storage);
         } catch (IOException e) {
             throw new CollectionFileException(e.getMessage());
+        } finally {
+            CommandTrace.exitCollection(trace, storage.size());
+        }
+    }
+
+    /**
+     * Writes groups to a file in the format of the collection without adding them
+     * to the collection, groups are written one by one, so they don't have to be in memory
+     * at once. Groups get ids from 1 in order, their own ids are ignored
+     * @param file Path of the file
+     * @param groups Groups to write
+     * @return Number of written groups
+     * @throws CollectionFileException Throws exception if there were troubles with writing the file
+     */
+    public static long write(String file, Iterator<StudyGroup> groups) throws CollectionFileException {
+        long count = 0;
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(new File(file), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            while (groups.hasNext()) {
+                ObjectNode node = mapper.valueToTree(groups.next());
+                node.put("id", ++count);
+                generator.writeFieldName(String.valueOf(count));
+                mapper.writeTree(generator, node);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new CollectionFileException(e.getMessage());
         }
+        return count;
     }
 
     /**
@@ -131,10 +239,12 @@ public class CollectionManager {
      * @return List of <b>StudyGroup</b>
      */
     public static List<StudyGroup> getAll() {
+        long trace = CommandTrace.enterCollection();
         List<StudyGroup> groups = new ArrayList<>();
-        for (var it : storage.entrySet()) {
-            groups.add(it.getValue());
+        for (var it : groups()) {
+            groups.add(it);
         }
+        CommandTrace.exitCollection(trace, groups.size());
         return groups;
     }
 
@@ -143,7 +253,66 @@ public class CollectionManager {
      * @param group <b>StudyGroup</b> to add
      */
     public static void add(StudyGroup group) {
-        storage.put(genId(), group);
+        long trace = CommandTrace.enterCollection();
+        int id = genId();
+        assignId(group, id);
+        var overlay = transaction.get();
+        if (overlay != null) {
+            overlay.insert(group);
+        } else {
+            storage.put(id, group);
+            indexInsert(group);
+        }
+        CommandTrace.exitCollection(trace, 1);
+    }
+
+    /**
+     * Adds several groups at once, free ids are found in one pass over
+     * the ids of the collection instead of a search for every group, and
+     * indexes are rebuilt once if the collection grows a lot
+     * @param groups Groups to add, they get ids in the order of the collection
+     */
+    public static void addAll(Collection<StudyGroup> groups) {
+        if (transaction.get() != null) {
+            for (var it : groups) {
+                add(it);
+            }
+            return;
+        }
+        long trace = CommandTrace.enterCollection();
+        boolean rebuild = groups.size() > storage.size();
+        var taken = storage.navigableKeySet().iterator();
+        int next = taken.hasNext() ? taken.next() : Integer.MAX_VALUE;
+        int[] ids = new int[groups.size()];
+        int id = 1;
+        for (int it = 0; it < ids.length; ++it) {
+            while (id == next) {
+                ++id;
+                next = taken.hasNext() ? taken.next() : Integer.MAX_VALUE;
+            }
+            ids[it] = id++;
+        }
+        // ids are released first, so a group can take the id another group had
+        int position = 0;
+        for (var it : groups) {
+            if (it.getId() != null && it.getId() != ids[position] && !storage.containsKey(it.getId()))
+                StudyGroup.getUsedIds().remove(it.getId());
+            ++position;
+        }
+        position = 0;
+        for (var it : groups) {
+            if (it.getId() == null || it.getId() != ids[position]) {
+                StudyGroup.getUsedIds().remove(ids[position]);
+                it.setId(ids[position]);
+            }
+            ++position;
+            storage.put(it.getId(), it);
+            if (!rebuild)
+                indexInsert(it);
+        }
+        if (rebuild)
+            rebuildIndexes();
+        CommandTrace.exitCollection(trace, groups.size());
     }
 
     /**
@@ -152,17 +321,41 @@ public class CollectionManager {
      * @param group New <b>StudyGroup</b>
      */
     public static void update(int id, StudyGroup group) {
-        if (!storage.containsKey(id))
+        if (!checkId(id))
             throw new CommandRuntimeException("Can't find the element with id " + id);
-        storage.replace(id, group);
+        long trace = CommandTrace.enterCollection();
+        assignId(group, id);
+        var overlay = transaction.get();
+        if (overlay != null) {
+            overlay.put(storage, group);
+        } else {
+            var old = storage.get(id);
+            indexRemove(old);
+            storage.replace(id, group);
+            indexInsert(group);
+        }
+        CommandTrace.exitCollection(trace, 1);
     }
 
     /**
      * Clears the collection
      */
     public static void clear() {
-        storage.clear();
-        StudyGroup.getUsedIds().clear();
+        long trace = CommandTrace.enterCollection();
+        long size = getElementsCount();
+        var overlay = transaction.get();
+        if (overlay != null) {
+            overlay.clear(storage);
+        } else {
+            storage.clear();
+            StudyGroup.getUsedIds().clear();
+            for (var it : indexes) {
+                it.clear();
+            }
+            occupied.clear();
+            freeHint = 1;
+        }
+        CommandTrace.exitCollection(trace, size);
     }
 
     /**
@@ -172,16 +365,18 @@ public class CollectionManager {
      * @return Number of removals
      */
     public static int remove(Predicate<StudyGroup> comparator) {
+        long trace = CommandTrace.enterCollection();
         int removals = 0;
 
-        for (var it : getAll()) {
+        var groups = getAll();
+        for (var it : groups) {
             if (comparator.test(it)) {
-                storage.remove(it.getId());
-                StudyGroup.getUsedIds().remove(it.getId());
+                removeGroup(it);
                 removals++;
             }
         }
 
+        CommandTrace.exitCollection(trace, groups.size());
         return removals;
     }
 
@@ -195,13 +390,24 @@ public class CollectionManager {
      * @return True if replacement was successful, otherwise returns false
      */
     public static boolean replace(Predicate<StudyGroup> comparator, int id, StudyGroup group) {
-        if (!storage.containsKey(id))
+        if (!checkId(id))
             throw new CommandRuntimeException("Can't find the element with id " + id);
-        if (comparator.test(storage.get(id))) {
-            storage.replace(id, group);
-            return true;
+        long trace = CommandTrace.enterCollection();
+        var overlay = transaction.get();
+        var old = overlay == null ? storage.get(id) : overlay.get(storage, id);
+        boolean replaced = comparator.test(old);
+        if (replaced) {
+            assignId(group, id);
+            if (overlay != null) {
+                overlay.put(storage, group);
+            } else {
+                indexRemove(old);
+                storage.replace(id, group);
+                indexInsert(group);
+            }
         }
-        return false;
+        CommandTrace.exitCollection(trace, 1);
+        return replaced;
     }
 
     /**
@@ -210,14 +416,19 @@ public class CollectionManager {
      * @return True if there was removal, otherwise returns false
      */
     public static boolean removeAnyByGroupAdmin(Person admin) {
-        for (var it : getAll()) {
+        long trace = CommandTrace.enterCollection();
+        int visited = 0;
+        boolean removed = false;
+        for (var it : groups()) {
+            ++visited;
             if (it.getGroupAdmin().equals(admin)) {
-                storage.remove(it.getId());
-                StudyGroup.getUsedIds().remove(it.getId());
-                return true;
+                removeGroup(it);
+                removed = true;
+                break;
             }
         }
-        return false;
+        CommandTrace.exitCollection(trace, visited);
+        return removed;
     }
 
     /**
@@ -226,12 +437,11 @@ public class CollectionManager {
      * @return Number of elements that are equal to specified <i>averageMark</i>
      */
     public static int countAvgMark(double avgMark) {
-        int count = 0;
-
-        for (var it : storage.entrySet()) {
-            if (it.getValue().getAverageMark() == avgMark)
-                count++;
-        }
+        long trace = CommandTrace.enterCollection();
+        int count = dirty() != null
+                ? countScan(group -> group.getAverageMark() == avgMark)
+                : (int) sortedIndexes.get(GroupField.AVERAGE_MARK).count(avgMark, true, avgMark, true, Long.MAX_VALUE);
+        CommandTrace.exitCollection(trace, count);
         return count;
     }
 
@@ -242,56 +452,482 @@ public class CollectionManager {
      * @return Number of elements that are equal to specified <i>averageMark</i> within delta
      */
     public static int countAvgMarkDelta(double avgMark, double delta) {
+        if (!(delta > 0))
+            return 0;
+        long trace = CommandTrace.enterCollection();
         int count = 0;
-        for (var it : storage.entrySet()) {
-            if (Math.abs(avgMark - it.getValue().getAverageMark()) < delta)
-                count++;
+        if (dirty() != null) {
+            count = countScan(group -> Math.abs(avgMark - group.getAverageMark()) < delta);
+        } else {
+            var range = sortedIndexes.get(GroupField.AVERAGE_MARK)
+                    .range(avgMark - delta, true, avgMark + delta, true);
+            for (var it : range.entrySet()) {
+                if (Math.abs(avgMark - it.getKey()) < delta)
+                    count += it.getValue().size();
+            }
         }
+        CommandTrace.exitCollection(trace, count);
         return count;
     }
 
     /**
-     * Finds all the elements that has specified substring in their name
+     * Publishes every element of the collection in order of their ids, elements are
+     * looked up only when the subscriber requests them, see {@link GroupPublisher}
+     * @return Publisher of the elements, every subscriber gets its own pass
+     */
+    public static Flow.Publisher<StudyGroup> publish() {
+        return new GroupPublisher(() -> group -> true);
+    }
+
+    /**
+     * Publishes the elements that have specified substring in their name
      * @param substring Substring to match with
-     * @return List of all matched elements
+     * @return Publisher of matched elements, see {@link #publish()}
      */
-    public static List<StudyGroup> filterContent(String substring) {
-        List<StudyGroup> result = new ArrayList<>();
-        for (var it : storage.entrySet()) {
-            if (it.getValue().getName().contains(substring))
-                result.add(it.getValue());
-        }
-        return result;
+    public static Flow.Publisher<StudyGroup> filterContent(String substring) {
+        return new GroupPublisher(() -> group -> group.getName().contains(substring));
     }
 
     /**
-     * Finds all the elements that matches regex pattern
+     * Publishes the elements that match regex pattern, pattern is compiled
+     * once and every subscriber reuses its own matcher
      * @param regex Regex to match with
-     * @return List of all matched elements
+     * @return Publisher of matched elements, see {@link #publish()}
      */
-    public static List<StudyGroup> filterContentRegex(String regex) {
+    public static Flow.Publisher<StudyGroup> filterContentRegex(String regex) {
+        Pattern pattern;
         try {
-            List<StudyGroup> result = new ArrayList<>();
-            for (var it : storage.entrySet()) {
-                if (Pattern.matches(regex, it.getValue().getName()))
-                    result.add(it.getValue());
-            }
-            return result;
+            pattern = Pattern.compile(regex);
         } catch (PatternSyntaxException ex) {
             throw new CommandArgumentException("Incorrect regex pattern");
         }
+        return new GroupPublisher(() -> {
+            var matcher = pattern.matcher("");
+            return group -> matcher.reset(group.getName()).matches();
+        });
+    }
+
+    /**
+     * Finds all the elements that match the query, query planner
+     * uses indexes when it is possible (indexes are not used inside
+     * a transaction with changes, the collection is scanned then)
+     * @param query Compiled query
+     * @return List of all matched elements ordered by id
+     */
+    public static List<StudyGroup> query(Query query) {
+        long trace = CommandTrace.enterCollection();
+        var predicate = query.getPredicate();
+        List<StudyGroup> result = new ArrayList<>();
+        if (dirty() != null) {
+            for (var it : groups()) {
+                if (predicate.test(it))
+                    result.add(it);
+            }
+        } else {
+            var plan = plan(query);
+            if (plan.exact()) {
+                plan.path().forEach(result::add);
+            } else {
+                plan.path().forEach(group -> {
+                    if (predicate.test(group))
+                        result.add(group);
+                });
+            }
+            if (!plan.path().isOrdered())
+                result.sort(Comparator.comparing(StudyGroup::getId));
+        }
+        CommandTrace.exitCollection(trace, result.size());
+        return result;
+    }
+
+    /**
+     * Counts the elements that match the query, if the query can be answered
+     * with indexes alone, elements are not visited (e.g. bitmaps are just popcounted)
+     * @param query Compiled query
+     * @return Number of matched elements
+     */
+    public static long count(Query query) {
+        long trace = CommandTrace.enterCollection();
+        var predicate = query.getPredicate();
+        long[] count = {0};
+        if (dirty() != null) {
+            count[0] = countScan(predicate);
+        } else {
+            var plan = plan(query);
+            if (plan.exact()) {
+                count[0] = plan.path().count();
+            } else {
+                plan.path().forEach(group -> {
+                    if (predicate.test(group))
+                        count[0]++;
+                });
+            }
+        }
+        CommandTrace.exitCollection(trace, count[0]);
+        return count[0];
+    }
+
+    /**
+     * Describes how the query would be executed
+     * @param query Compiled query
+     * @return Description of chosen access path
+     */
+    public static String explain(Query query) {
+        var overlay = dirty();
+        if (overlay != null)
+            return "Full scan of the collection with uncommitted changes, estimated candidates: " + overlay.size(storage);
+        var plan = plan(query);
+        return plan.describe() + ", estimated candidates: " + plan.path().estimate(storage.size());
+    }
+
+    /**
+     * Selects elements with the greatest or the lowest values of the field,
+     * answers from the sorted index if there is one for the field, otherwise
+     * uses bounded heap, so the collection is never sorted as a whole
+     * @param field Numeric or string field to order by
+     * @param k Maximal number of elements to select
+     * @param ascending True to select the lowest values, otherwise selects the greatest ones
+     * @return Selected elements in requested order, elements with equal values are ordered by id
+     */
+    public static List<StudyGroup> top(GroupField field, int k, boolean ascending) {
+        if (k <= 0)
+            return new ArrayList<>();
+        var index = dirty() == null ? sortedIndexes.get(field) : null;
+        if (index == null && field.getKind() == GroupField.Kind.ENUM)
+            throw new CommandArgumentException("Can't order by enum field '" + field + "'");
+        long trace = CommandTrace.enterCollection();
+        List<StudyGroup> result;
+        if (index != null) {
+            var range = index.range(null, false, null, false);
+            var buckets = ascending ? range.values() : range.descendingMap().values();
+            result = new ArrayList<>();
+            for (var it : buckets) {
+                result.addAll(selectTop(it.values(), Comparator.comparing(StudyGroup::getId), k - result.size()));
+                if (result.size() >= k)
+                    break;
+            }
+        } else {
+            Comparator<StudyGroup> order = switch (field.getKind()) {
+                case LONG -> Comparator.comparingLong(field::getLong);
+                case DOUBLE -> Comparator.comparingDouble(field::getDouble);
+                case STRING -> Comparator.comparing(group -> (String) field.get(group));
+                case ENUM -> throw new CommandArgumentException("Can't order by enum field '" + field + "'");
+            };
+            if (!ascending)
+                order = order.reversed();
+            result = selectTop(groups(), order.thenComparing(StudyGroup::getId), k);
+        }
+        CommandTrace.exitCollection(trace, result.size());
+        return result;
+    }
+
+    /**
+     * Returns statistics of the field, statistics are maintained
+     * on every change of the collection, so the call doesn't scan it
+     * @param field Field to get statistics for
+     * @return Statistics of the field
+     * @throws CommandArgumentException Throws an exception if statistics for the field are not kept
+     */
+    public static FieldStatistics.Snapshot getStatistics(GroupField field) {
+        var fieldStatistics = statistics.get(field);
+        if (fieldStatistics == null)
+            throw new CommandArgumentException("Statistics for field '" + field + "' are not kept");
+        if (dirty() != null) {
+            var index = new SortedIndex(field);
+            fieldStatistics = new FieldStatistics(index, fieldStatistics.getBucketWidth());
+            for (var it : groups()) {
+                index.insert(it);
+                fieldStatistics.insert(it);
+            }
+        }
+        return fieldStatistics.snapshot();
+    }
+
+    /**
+     * @return Fields with statistics
+     */
+    public static List<GroupField> getStatisticsFields() {
+        return new ArrayList<>(statistics.keySet());
+    }
 
+    /**
+     * Returns number of groups and sums of the field for every value of
+     * the key field, values are pre-aggregated on every change of the collection
+     * @param key Enum field to group by
+     * @param measure Numeric field to sum or null if only counts are needed
+     * @return Aggregates for every value of key field that has groups
+     * @throws CommandArgumentException Throws an exception if aggregates for the fields are not kept
+     */
+    public static List<AggregateCube.Group> groupBy(GroupField key, GroupField measure) {
+        var cube = cubes.get(key);
+        if (cube == null)
+            throw new CommandArgumentException("Can't group by field '" + key + "'");
+        if (measure != null && !cube.getMeasures().contains(measure))
+            throw new CommandArgumentException("Sums for field '" + measure + "' are not kept");
+        if (dirty() != null) {
+            cube = new AggregateCube(key, cube.getMeasures());
+            for (var it : groups()) {
+                cube.insert(it);
+            }
+        }
+        return cube.groups(measure);
     }
 
     /**
-     * Generates free id for group
+     * Generates free id for group, the lowest one that is not taken.
+     * Taken ids are kept in a bit set with a hint below which all the ids are
+     * taken, so sequential inserts don't scan the collection from the start
      * @return Free id
      */
     public static int genId() {
-        int id = 1;
-        while (storage.containsKey(id)) {
-            id++;
+        var overlay = transaction.get();
+        int id = occupied.nextClearBit(freeHint);
+        while (overlay == null ? storage.containsKey(id) : overlay.isTaken(storage, id)) {
+            id = occupied.nextClearBit(id + 1);
         }
+        if (overlay == null)
+            freeHint = id;
         return id;
     }
+
+    /**
+     * Starts a transaction for the current thread, changes made after it
+     * are visible only to this thread until {@link #commit()}
+     * @throws CommandRuntimeException Throws an exception if transaction is already started
+     */
+    public static void begin() {
+        if (transaction.get() != null)
+            throw new CommandRuntimeException("Transaction is already started");
+        transaction.set(new Transaction());
+    }
+
+    /**
+     * Applies all the changes of the transaction at once, indexes are updated
+     * once per changed element (or rebuilt if the most of collection was changed).
+     * If a command inside the transaction has failed, transaction is rolled back instead
+     *
+     * Transaction is rolled back as well if another session has committed a change
+     * of an element this transaction changes, or has removed it, after this transaction
+     * has seen it. Elements that are removed by both are not a conflict. <b>clear</b>
+     * removes only the elements the transaction has seen, elements committed by
+     * other sessions after it stay in the collection
+     * @return Number of changed elements
+     * @throws CommandRuntimeException Throws an exception if there is no transaction
+     * or if it was rolled back because of a failed command or a conflict
+     */
+    public static int commit() {
+        var overlay = transaction.get();
+        if (overlay == null)
+            throw new CommandRuntimeException("There is no transaction to commit");
+        if (overlay.isFailed()) {
+            rollback();
+            throw new CommandRuntimeException("Transaction was rolled back because one of its commands has failed");
+        }
+        var writes = overlay.getWrites();
+        for (var it : overlay.getBases().entrySet()) {
+            var current = storage.get(it.getKey());
+            if (current != it.getValue() && !(current == null && writes.get(it.getKey()) == null)) {
+                rollback();
+                throw new CommandRuntimeException("Transaction was rolled back because element with id "
+                        + it.getKey() + " was changed by another session");
+            }
+        }
+        transaction.remove();
+        long trace = CommandTrace.enterCollection();
+        boolean rebuild = overlay.isCleared() || writes.size() > storage.size() / 2;
+        List<Integer> dropped = new ArrayList<>();
+        if (overlay.isCleared()) {
+            for (var it : overlay.getBases().keySet()) {
+                if (storage.remove(it) != null)
+                    dropped.add(it);
+            }
+        }
+        for (var it : writes.entrySet()) {
+            int id = it.getKey();
+            var group = it.getValue();
+            if (group == null) {
+                var old = storage.remove(id);
+                if (old != null) {
+                    dropped.add(id);
+                    if (!rebuild)
+                        indexRemove(old);
+                }
+                continue;
+            }
+            if (overlay.getInserted().contains(id) && storage.containsKey(id)) {
+                // id was taken by a transaction that was committed earlier
+                id = genId();
+                StudyGroup.getUsedIds().remove(id);
+                group.setId(id);
+            }
+            var old = storage.put(id, group);
+            if (!rebuild) {
+                if (old != null)
+                    indexRemove(old);
+                indexInsert(group);
+            }
+        }
+        for (var it : dropped) {
+            if (!storage.containsKey(it))
+                StudyGroup.getUsedIds().remove(it);
+        }
+        if (rebuild)
+            rebuildIndexes();
+        CommandTrace.exitCollection(trace, writes.size());
+        return writes.size();
+    }
+
+    /**
+     * Discards all the changes of the transaction
+     * @return Number of discarded changed elements
+     * @throws CommandRuntimeException Throws an exception if there is no transaction
+     */
+    public static int rollback() {
+        var overlay = transaction.get();
+        if (overlay == null)
+            throw new CommandRuntimeException("There is no transaction to roll back");
+        transaction.remove();
+        for (var it : overlay.getInserted()) {
+            if (!storage.containsKey(it))
+                StudyGroup.getUsedIds().remove(it);
+        }
+        return overlay.changes();
+    }
+
+    /**
+     * Marks transaction of the current thread as failed, so it can't be committed,
+     * does nothing if there is no transaction
+     */
+    public static void failTransaction() {
+        var overlay = transaction.get();
+        if (overlay != null)
+            overlay.fail();
+    }
+
+    /**
+     * @return Transaction of the current thread or null
+     */
+    public static Transaction getTransaction() {
+        return transaction.get();
+    }
+
+    /**
+     * Binds transaction to the current thread, used to move
+     * a session with its transaction between threads
+     * @param value Transaction or null to unbind
+     */
+    public static void setTransaction(Transaction value) {
+        if (value == null)
+            transaction.remove();
+        else
+            transaction.set(value);
+    }
+
+    /**
+     * Selects first <i>k</i> elements in specified order with bounded heap in O(n log k)
+     */
+    private static List<StudyGroup> selectTop(Iterable<StudyGroup> groups, Comparator<StudyGroup> order, int k) {
+        PriorityQueue<StudyGroup> heap = new PriorityQueue<>(Math.min(k, 1024), order.reversed());
+        for (var it : groups) {
+            if (heap.size() < k) {
+                heap.add(it);
+            } else if (order.compare(it, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(it);
+            }
+        }
+        List<StudyGroup> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * @return Transaction of the current thread if it has changes, otherwise null
+     */
+    private static Transaction dirty() {
+        var overlay = transaction.get();
+        return overlay == null || overlay.isEmpty() ? null : overlay;
+    }
+
+    /**
+     * Elements visible to the current thread, in order of ids
+     */
+    private static Iterable<StudyGroup> groups() {
+        var overlay = dirty();
+        return overlay == null ? storage.values() : overlay.values(storage);
+    }
+
+    /**
+     * Elements visible to the current thread that have ids greater than <i>after</i>, in order of ids
+     */
+    static Iterable<StudyGroup> groupsAfter(int after) {
+        var overlay = dirty();
+        return overlay == null ? storage.tailMap(after, false).values() : overlay.values(storage, after);
+    }
+
+    private static int countScan(Predicate<StudyGroup> predicate) {
+        int count = 0;
+        for (var it : groups()) {
+            if (predicate.test(it))
+                ++count;
+        }
+        return count;
+    }
+
+    private static void removeGroup(StudyGroup group) {
+        var overlay = transaction.get();
+        if (overlay != null) {
+            overlay.remove(storage, group.getId());
+            return;
+        }
+        storage.remove(group.getId());
+        StudyGroup.getUsedIds().remove(group.getId());
+        indexRemove(group);
+    }
+
+    private static Plan plan(Query query) {
+        return QueryPlanner.plan(query, storage, sortedIndexes, bitmapIndexes);
+    }
+
+    /**
+     * Makes id of the group equal to its key in the storage,
+     * indexes rely on that
+     */
+    private static void assignId(StudyGroup group, int id) {
+        if (group.getId() != null && group.getId() == id)
+            return;
+        if (group.getId() != null)
+            StudyGroup.getUsedIds().remove(group.getId());
+        StudyGroup.getUsedIds().remove(id);
+        group.setId(id);
+    }
+
+    private static void indexInsert(StudyGroup group) {
+        occupied.set(group.getId());
+        for (var it : indexes) {
+            it.insert(group);
+        }
+    }
+
+    private static void indexRemove(StudyGroup group) {
+        occupied.clear(group.getId());
+        freeHint = Math.min(freeHint, group.getId());
+        for (var it : indexes) {
+            it.remove(group);
+        }
+    }
+
+    private static void rebuildIndexes() {
+        for (var it : indexes) {
+            it.clear();
+        }
+        occupied.clear();
+        freeHint = 1;
+        for (var it : storage.values()) {
+            indexInsert(it);
+        }
+    }
 }
@@ -0,0 +1,257 @@
+package com.armemius.lab5.collection;
+
+import com.armemius.lab5.collection.data.Country;
+import com.armemius.lab5.collection.data.EyeColor;
+import com.armemius.lab5.collection.data.HairColor;
+import com.armemius.lab5.collection.data.Semester;
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <b>GroupField</b> describes fields of {@link StudyGroup} that
+ * can be addressed by their path (e.g. <i>groupAdmin.nationality</i>)
+ *
+ * Every field has typed getter, so numeric values can be
+ * read without boxing
+ */
+public enum GroupField {
+    ID("id", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getId();
+        }
+    },
+    NAME("name", Kind.STRING) {
+        @Override
+        public Object get(StudyGroup group) {
+            return group.getName();
+        }
+    },
+    COORDINATES_X("coordinates.x", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getCoordinates().getX();
+        }
+    },
+    COORDINATES_Y("coordinates.y", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getCoordinates().getY();
+        }
+    },
+    STUDENTS_COUNT("studentsCount", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getStudentsCount();
+        }
+    },
+    EXPELLED_STUDENTS("expelledStudents", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getExpelledStudents();
+        }
+    },
+    AVERAGE_MARK("averageMark", Kind.DOUBLE) {
+        @Override
+        public double getDouble(StudyGroup group) {
+            return group.getAverageMark();
+        }
+    },
+    SEMESTER("semesterEnum", Semester.class) {
+        @Override
+        public Object get(StudyGroup group) {
+            return group.getSemesterEnum();
+        }
+    },
+    ADMIN_NAME("groupAdmin.name", Kind.STRING) {
+        @Override
+        public Object get(StudyGroup group) {
+            return group.getGroupAdmin().getName();
+        }
+    },
+    ADMIN_HEIGHT("groupAdmin.height", Kind.DOUBLE) {
+        @Override
+        public double getDouble(StudyGroup group) {
+            return group.getGroupAdmin().getHeight();
+        }
+    },
+    ADMIN_EYE_COLOR("groupAdmin.eyeColor", EyeColor.class) {
+        @Override
+        public Object get(StudyGroup group) {
+            return group.getGroupAdmin().getEyeColor();
+        }
+    },
+    ADMIN_HAIR_COLOR("groupAdmin.hairColor", HairColor.class) {
+        @Override
+        public Object get(StudyGroup group) {
+            return group.getGroupAdmin().getHairColor();
+        }
+    },
+    ADMIN_NATIONALITY("groupAdmin.nationality", Country.class) {
+        @Override
+        public Object get(StudyGroup group) {
+            return group.getGroupAdmin().getNationality();
+        }
+    },
+    ADMIN_LOCATION_X("groupAdmin.location.x", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getGroupAdmin().getLocation().getX();
+        }
+    },
+    ADMIN_LOCATION_Y("groupAdmin.location.y", Kind.DOUBLE) {
+        @Override
+        public double getDouble(StudyGroup group) {
+            return group.getGroupAdmin().getLocation().getY();
+        }
+    },
+    ADMIN_LOCATION_Z("groupAdmin.location.z", Kind.LONG) {
+        @Override
+        public long getLong(StudyGroup group) {
+            return group.getGroupAdmin().getLocation().getZ();
+        }
+    };
+
+    /**
+     * Type of the value stored in the field
+     */
+    public enum Kind {
+        LONG,
+        DOUBLE,
+        STRING,
+        ENUM
+    }
+
+    private static final Map<String, GroupField> byPath = new HashMap<>();
+
+    static {
+        for (var it : values()) {
+            byPath.put(it.path, it);
+        }
+    }
+
+    private final String path;
+    private final Kind kind;
+    private final Class<? extends Enum<?>> enumType;
+
+    GroupField(String path, Kind kind) {
+        this.path = path;
+        this.kind = kind;
+        this.enumType = null;
+    }
+
+    GroupField(String path, Class<? extends Enum<?>> enumType) {
+        this.path = path;
+        this.kind = Kind.ENUM;
+        this.enumType = enumType;
+    }
+
+    /**
+     * Finds field by its path
+     * @param path Path of the field, e.g. <i>groupAdmin.location.x</i>
+     * @return Matching field
+     * @throws CommandArgumentException Throws an exception if there is no such field
+     */
+    public static GroupField byPath(String path) {
+        var field = byPath.get(path);
+        if (field == null)
+            throw new CommandArgumentException("Unknown field '" + path + "'");
+        return field;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return Enum class of the field or null if field is not enum
+     */
+    public Class<? extends Enum<?>> getEnumType() {
+        return enumType;
+    }
+
+    /**
+     * @return True if field holds integer or floating point value
+     */
+    public boolean isNumeric() {
+        return kind == Kind.LONG || kind == Kind.DOUBLE;
+    }
+
+    /**
+     * Reads value of integer field
+     * @param group Group to read from
+     * @return Value of the field
+     */
+    public long getLong(StudyGroup group) {
+        throw new UnsupportedOperationException("Field '" + path + "' is not integer");
+    }
+
+    /**
+     * Reads value of numeric field
+     * @param group Group to read from
+     * @return Value of the field
+     */
+    public double getDouble(StudyGroup group) {
+        if (kind == Kind.LONG)
+            return getLong(group);
+        throw new UnsupportedOperationException("Field '" + path + "' is not numeric");
+    }
+
+    /**
+     * Reads value of the field, numeric values are boxed
+     * @param group Group to read from
+     * @return Value of the field
+     */
+    public Object get(StudyGroup group) {
+        return switch (kind) {
+            case LONG -> getLong(group);
+            case DOUBLE -> getDouble(group);
+            default -> throw new UnsupportedOperationException("Field '" + path + "' has no getter");
+        };
+    }
+
+    /**
+     * Converts string literal to the value of field's type
+     * @param literal Literal to convert, <i>null</i> is accepted for enum fields,
+     *                <i>NaN</i> and infinities are not accepted
+     * @return Converted value: Long, Double, String or enum constant
+     * @throws CommandArgumentException Throws an exception if literal doesn't match the type
+     */
+    public Object parseValue(String literal) {
+        try {
+            return switch (kind) {
+                case LONG -> Long.parseLong(literal);
+                case DOUBLE -> {
+                    double value = Double.parseDouble(literal);
+                    if (!Double.isFinite(value))
+                        throw new CommandArgumentException("Field '" + path + "' must be a finite number");
+                    yield value;
+                }
+                case STRING -> literal;
+                case ENUM -> {
+                    if (literal.equals("null"))
+                        yield null;
+                    for (var it : enumType.getEnumConstants()) {
+                        if (it.name().equals(literal))
+                            yield it;
+                    }
+                    throw new CommandArgumentException("Incorrect value for " + enumType.getSimpleName());
+                }
+            };
+        } catch (NumberFormatException ex) {
+            throw new CommandArgumentException("Incorrect value for field '" + path + "'");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
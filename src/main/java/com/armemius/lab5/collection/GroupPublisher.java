@@ -0,0 +1,102 @@
+package com.armemius.lab5.collection;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.commands.metrics.CommandTrace;
+
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * <b>GroupPublisher</b> publishes elements of the collection in order of
+ * their ids, elements are looked up only when the subscriber requests them,
+ * so the collection is not visited further than the consumer has asked for
+ *
+ * Elements are emitted on the thread that calls {@link Flow.Subscription#request(long)},
+ * inside of the call and with the transaction of that thread. Every request
+ * continues after the id of the last visited element, so changes made between
+ * requests are seen as by a weakly consistent iterator: removed elements are
+ * skipped and elements added after the position are published
+ */
+final class GroupPublisher implements Flow.Publisher<StudyGroup> {
+    private final Supplier<Predicate<? super StudyGroup>> filters;
+
+    /**
+     * @param filters Creates filter of elements for every subscriber
+     */
+    GroupPublisher(Supplier<Predicate<? super StudyGroup>> filters) {
+        this.filters = filters;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super StudyGroup> subscriber) {
+        subscriber.onSubscribe(new Cursor(subscriber, filters.get()));
+    }
+
+    /**
+     * Position of one subscriber in the collection
+     */
+    private static final class Cursor implements Flow.Subscription {
+        private final Flow.Subscriber<? super StudyGroup> subscriber;
+        private final Predicate<? super StudyGroup> filter;
+        private int last = Integer.MIN_VALUE;
+        private long demand = 0;
+        private boolean emitting = false;
+        private boolean done = false;
+
+        private Cursor(Flow.Subscriber<? super StudyGroup> subscriber, Predicate<? super StudyGroup> filter) {
+            this.subscriber = subscriber;
+            this.filter = filter;
+        }
+
+        @Override
+        public void request(long count) {
+            if (done)
+                return;
+            if (count <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("Number of requested elements must be positive"));
+                return;
+            }
+            demand = demand + count < 0 ? Long.MAX_VALUE : demand + count;
+            // requests made from onNext only add demand, the running loop serves them
+            if (emitting)
+                return;
+            emitting = true;
+            try {
+                emit();
+            } finally {
+                emitting = false;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void emit() {
+            long trace = CommandTrace.enterCollection();
+            int visited = 0;
+            try {
+                var iterator = CollectionManager.groupsAfter(last).iterator();
+                while (demand > 0 && !done) {
+                    if (!iterator.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    var group = iterator.next();
+                    last = group.getId();
+                    ++visited;
+                    if (filter.test(group)) {
+                        --demand;
+                        subscriber.onNext(group);
+                    }
+                }
+            } finally {
+                CommandTrace.exitCollection(trace, visited);
+            }
+        }
+    }
+}
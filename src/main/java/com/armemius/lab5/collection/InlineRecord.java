@@ -0,0 +1,154 @@
+package com.armemius.lab5.collection;
+
+import com.armemius.lab5.collection.data.Coordinates;
+import com.armemius.lab5.collection.data.Country;
+import com.armemius.lab5.collection.data.EyeColor;
+import com.armemius.lab5.collection.data.HairColor;
+import com.armemius.lab5.collection.data.Location;
+import com.armemius.lab5.collection.data.Person;
+import com.armemius.lab5.collection.data.Semester;
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <b>InlineRecord</b> builds {@link StudyGroup} from the arguments of a command,
+ * fields are addressed by their {@link GroupField} paths. Two forms are accepted:
+ * <ul>
+ *     <li>JSON object as the only argument, nested (<i>{"coordinates": {"x": 1}}</i>) or with paths as keys</li>
+ *     <li>key=value pair in every argument, e.g. <i>name="Group A" coordinates.x=1 groupAdmin.nationality=CHINA</i></li>
+ * </ul>
+ * All the fields except <i>semesterEnum</i> are required, <i>id</i> is generated
+ */
+public final class InlineRecord {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private InlineRecord() {}
+
+    /**
+     * Parses and validates the record in one pass, values are checked before
+     * the group is built, so an incorrect record doesn't leave anything behind
+     * @param args Arguments that hold the record, as the parser or the datagram gave them
+     * @return New group without id, it gets one when it is put into the collection
+     * @throws CommandArgumentException If record is malformed, has unknown, missing or incorrect fields
+     */
+    public static StudyGroup parse(List<String> args) {
+        Map<GroupField, String> values = new EnumMap<>(GroupField.class);
+        if (args.size() == 1 && args.get(0).strip().startsWith("{")) {
+            readJson(args.get(0), values);
+        } else {
+            for (var it : args) {
+                readPair(it, values);
+            }
+        }
+        if (values.containsKey(GroupField.ID))
+            throw new CommandArgumentException("Field 'id' is generated automatically");
+        String name = (String) value(values, GroupField.NAME);
+        check(!name.isEmpty(), GroupField.NAME, "can't be empty");
+        long y = (Long) value(values, GroupField.COORDINATES_Y);
+        check(y > -266, GroupField.COORDINATES_Y, "must be greater than -266");
+        long students = (Long) value(values, GroupField.STUDENTS_COUNT);
+        check(students > 0, GroupField.STUDENTS_COUNT, "must be positive");
+        int expelled = toInt(values, GroupField.EXPELLED_STUDENTS);
+        check(expelled > 0, GroupField.EXPELLED_STUDENTS, "must be positive");
+        double mark = (Double) value(values, GroupField.AVERAGE_MARK);
+        check(mark > 0, GroupField.AVERAGE_MARK, "must be positive");
+        String adminName = (String) value(values, GroupField.ADMIN_NAME);
+        check(!adminName.isEmpty(), GroupField.ADMIN_NAME, "can't be empty");
+        float height = ((Double) value(values, GroupField.ADMIN_HEIGHT)).floatValue();
+        check(height > 0, GroupField.ADMIN_HEIGHT, "must be positive");
+        var location = new Location(
+                (Long) value(values, GroupField.ADMIN_LOCATION_X),
+                (Double) value(values, GroupField.ADMIN_LOCATION_Y),
+                (Long) value(values, GroupField.ADMIN_LOCATION_Z));
+        var admin = new Person(adminName, height,
+                (EyeColor) value(values, GroupField.ADMIN_EYE_COLOR),
+                (HairColor) value(values, GroupField.ADMIN_HAIR_COLOR),
+                (Country) value(values, GroupField.ADMIN_NATIONALITY),
+                location);
+        var semester = values.containsKey(GroupField.SEMESTER)
+                ? (Semester) GroupField.SEMESTER.parseValue(values.get(GroupField.SEMESTER))
+                : null;
+        var group = new StudyGroup();
+        group.setName(name);
+        group.setCoordinates(new Coordinates(toInt(values, GroupField.COORDINATES_X), y));
+        group.setCreationDate(ZonedDateTime.now());
+        group.setStudentsCount(students);
+        group.setExpelledStudents(expelled);
+        group.setAverageMark(mark);
+        group.setSemesterEnum(semester);
+        group.setGroupAdmin(admin);
+        return group;
+    }
+
+    private static void check(boolean condition, GroupField field, String message) {
+        if (!condition)
+            throw new CommandArgumentException("Field '" + field + "' " + message);
+    }
+
+    private static Object value(Map<GroupField, String> values, GroupField field) {
+        var literal = values.get(field);
+        if (literal == null)
+            throw new CommandArgumentException("Field '" + field + "' is missing");
+        var value = field.parseValue(literal);
+        if (value == null)
+            throw new CommandArgumentException("Field '" + field + "' can't be null");
+        return value;
+    }
+
+    private static int toInt(Map<GroupField, String> values, GroupField field) {
+        try {
+            return Math.toIntExact((Long) value(values, field));
+        } catch (ArithmeticException ex) {
+            throw new CommandArgumentException("Value of field '" + field + "' is out of range");
+        }
+    }
+
+    private static void put(Map<GroupField, String> values, String path, String literal) {
+        if (values.put(GroupField.byPath(path), literal) != null)
+            throw new CommandArgumentException("Field '" + path + "' is set twice");
+    }
+
+    private static void readJson(String text, Map<GroupField, String> values) {
+        JsonNode root;
+        try {
+            root = mapper.readTree(text);
+        } catch (JsonProcessingException ex) {
+            throw new CommandArgumentException("Incorrect JSON record: " + ex.getOriginalMessage());
+        }
+        readJsonObject(root, "", values);
+    }
+
+    private static void readJsonObject(JsonNode node, String prefix, Map<GroupField, String> values) {
+        var fields = node.fields();
+        while (fields.hasNext()) {
+            var it = fields.next();
+            String path = prefix + it.getKey();
+            JsonNode value = it.getValue();
+            if (value.isObject())
+                readJsonObject(value, path + ".", values);
+            else if (value.isValueNode())
+                put(values, path, value.isNull() ? "null" : value.asText());
+            else
+                throw new CommandArgumentException("Field '" + path + "' can't be an array");
+        }
+    }
+
+    /**
+     * Reads one key=value pair, value is taken up to the end of the argument,
+     * so it may contain spaces (in console it is put in double quotes)
+     */
+    private static void readPair(String arg, Map<GroupField, String> values) {
+        int separator = arg.indexOf('=');
+        if (separator <= 0)
+            throw new CommandArgumentException("Expected key=value pair at '" + arg + "'");
+        put(values, arg.substring(0, separator), arg.substring(separator + 1));
+    }
+}
@@ -0,0 +1,227 @@
+package com.armemius.lab5.collection;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <b>Transaction</b> keeps changes of one session that are not committed yet.
+ * Changes are stored as an overlay over the collection: the last version of
+ * every changed element (null if it was removed) and a flag for <b>clear</b>,
+ * so reads inside the transaction see the collection as if the changes were
+ * applied, while other sessions still see the committed one
+ *
+ * For every committed element the transaction changes or removes (including
+ * the ones removed by <b>clear</b>) it remembers the version it has seen,
+ * commit checks them against the collection, see {@link CollectionManager#commit()}
+ *
+ * Transactions are created and applied by {@link CollectionManager}
+ * @see CollectionManager#begin()
+ */
+public final class Transaction {
+    private final TreeMap<Integer, StudyGroup> writes = new TreeMap<>();
+    private final Set<Integer> inserted = new HashSet<>();
+    private final Map<Integer, StudyGroup> bases = new HashMap<>();
+    private boolean cleared = false;
+    private boolean failed = false;
+
+    Transaction() {}
+
+    /**
+     * @return True if transaction has no changes
+     */
+    public boolean isEmpty() {
+        return !cleared && writes.isEmpty();
+    }
+
+    /**
+     * @return Number of changed elements
+     */
+    public int changes() {
+        return writes.size();
+    }
+
+    /**
+     * @return True if one of the commands inside the transaction has failed,
+     * such transaction can only be rolled back
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    void fail() {
+        failed = true;
+    }
+
+    boolean isCleared() {
+        return cleared;
+    }
+
+    TreeMap<Integer, StudyGroup> getWrites() {
+        return writes;
+    }
+
+    Set<Integer> getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Versions of committed elements the transaction has changed or removed, by ids
+     */
+    Map<Integer, StudyGroup> getBases() {
+        return bases;
+    }
+
+    StudyGroup get(TreeMap<Integer, StudyGroup> base, int id) {
+        if (writes.containsKey(id))
+            return writes.get(id);
+        return cleared ? null : base.get(id);
+    }
+
+    boolean contains(TreeMap<Integer, StudyGroup> base, int id) {
+        return get(base, id) != null;
+    }
+
+    /**
+     * Id is taken if it belongs to the collection or to the overlay,
+     * ids of removed elements are not reused until commit
+     */
+    boolean isTaken(TreeMap<Integer, StudyGroup> base, int id) {
+        return writes.containsKey(id) || base.containsKey(id);
+    }
+
+    int size(TreeMap<Integer, StudyGroup> base) {
+        int size = cleared ? 0 : base.size();
+        for (var it : writes.entrySet()) {
+            boolean present = !cleared && base.containsKey(it.getKey());
+            if (it.getValue() != null && !present)
+                ++size;
+            else if (it.getValue() == null && present)
+                --size;
+        }
+        return size;
+    }
+
+    void insert(StudyGroup group) {
+        writes.put(group.getId(), group);
+        inserted.add(group.getId());
+    }
+
+    void put(TreeMap<Integer, StudyGroup> base, StudyGroup group) {
+        remember(base, group.getId());
+        writes.put(group.getId(), group);
+    }
+
+    void remove(TreeMap<Integer, StudyGroup> base, int id) {
+        if (inserted.remove(id)) {
+            writes.remove(id);
+            StudyGroup.getUsedIds().remove(id);
+        } else {
+            remember(base, id);
+            writes.put(id, null);
+        }
+    }
+
+    void clear(TreeMap<Integer, StudyGroup> base) {
+        if (!cleared) {
+            for (var it : base.entrySet()) {
+                bases.putIfAbsent(it.getKey(), it.getValue());
+            }
+        }
+        for (var it : inserted) {
+            StudyGroup.getUsedIds().remove(it);
+        }
+        inserted.clear();
+        writes.clear();
+        cleared = true;
+    }
+
+    /**
+     * Remembers version of the committed element before its first change
+     */
+    private void remember(TreeMap<Integer, StudyGroup> base, int id) {
+        if (cleared || inserted.contains(id) || bases.containsKey(id))
+            return;
+        var group = base.get(id);
+        if (group != null)
+            bases.put(id, group);
+    }
+
+    /**
+     * Elements of the collection with the overlay applied, in order of ids
+     */
+    Iterable<StudyGroup> values(TreeMap<Integer, StudyGroup> base) {
+        return () -> new MergeIterator(cleared ? null : base.entrySet().iterator(), writes.entrySet().iterator());
+    }
+
+    /**
+     * Elements of the collection with the overlay applied that have ids greater than <i>after</i>
+     */
+    Iterable<StudyGroup> values(TreeMap<Integer, StudyGroup> base, int after) {
+        return () -> new MergeIterator(cleared ? null : base.tailMap(after, false).entrySet().iterator(),
+                writes.tailMap(after, false).entrySet().iterator());
+    }
+
+    /**
+     * Merges two id-ordered sequences, overlay wins on equal ids and its nulls are skipped
+     */
+    private static class MergeIterator implements Iterator<StudyGroup> {
+        private final Iterator<Map.Entry<Integer, StudyGroup>> base;
+        private final Iterator<Map.Entry<Integer, StudyGroup>> overlay;
+        private Map.Entry<Integer, StudyGroup> nextBase;
+        private Map.Entry<Integer, StudyGroup> nextOverlay;
+        private StudyGroup next;
+
+        private MergeIterator(Iterator<Map.Entry<Integer, StudyGroup>> base, Iterator<Map.Entry<Integer, StudyGroup>> overlay) {
+            this.base = base;
+            this.overlay = overlay;
+            nextBase = advance(base);
+            nextOverlay = advance(overlay);
+            next = find();
+        }
+
+        private static Map.Entry<Integer, StudyGroup> advance(Iterator<Map.Entry<Integer, StudyGroup>> iterator) {
+            return iterator != null && iterator.hasNext() ? iterator.next() : null;
+        }
+
+        private StudyGroup find() {
+            while (nextBase != null || nextOverlay != null) {
+                int order = nextBase == null ? 1
+                        : nextOverlay == null ? -1
+                        : Integer.compare(nextBase.getKey(), nextOverlay.getKey());
+                if (order < 0) {
+                    var value = nextBase.getValue();
+                    nextBase = advance(base);
+                    return value;
+                }
+                if (order == 0)
+                    nextBase = advance(base);
+                var value = nextOverlay.getValue();
+                nextOverlay = advance(overlay);
+                if (value != null)
+                    return value;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public StudyGroup next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            var value = next;
+            next = find();
+            return value;
+        }
+    }
+}
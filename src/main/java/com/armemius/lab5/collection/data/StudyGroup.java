@@ -13,6 +13,12 @@ public class StudyGroup {
 
     private static Set<Integer> usedIds = new TreeSet<>();
 
+    /**
+     * Format of dates in human-readable output, formatter is
+     * immutable and thread-safe so it is created only once
+     */
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss dd/MM/yyyy");
+
     public StudyGroup(Integer id, String name, Coordinates coordinates, long studentsCount, int expelledStudents, double averageMark, Semester semesterEnum, Person groupAdmin) {
         creationDate = java.time.ZonedDateTime.now();
         if (id == null || id <= 0 || usedIds.contains(id))
@@ -147,7 +153,7 @@ public class StudyGroup {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", coordinates=" + coordinates +
-                ", creationDate=" + creationDate.format(DateTimeFormatter.ofPattern("HH:mm:ss dd/MM/yyyy")) +
+                ", creationDate=" + creationDate.format(DATE_FORMAT) +
                 ", studentsCount=" + studentsCount +
                 ", expelledStudents=" + expelledStudents +
                 ", averageMark=" + averageMark +
@@ -0,0 +1,226 @@
+package com.armemius.lab5.collection.generator;
+
+import com.armemius.lab5.collection.data.Coordinates;
+import com.armemius.lab5.collection.data.Country;
+import com.armemius.lab5.collection.data.EyeColor;
+import com.armemius.lab5.collection.data.HairColor;
+import com.armemius.lab5.collection.data.Location;
+import com.armemius.lab5.collection.data.Person;
+import com.armemius.lab5.collection.data.Semester;
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * <b>DatasetGenerator</b> generates groups described by {@link DatasetSpec}
+ * from {@link SplittableRandom} streams, so the same seed always gives the same groups
+ * (except <i>creationDate</i>, which is the time the generator was created)
+ *
+ * Large datasets are generated in chunks of {@value #CHUNK} groups, every chunk has
+ * its own stream split from the generator in order of chunks, so chunks are generated
+ * in parallel and the result doesn't depend on the number of threads. Generated
+ * groups don't have ids, ids are given when they are added to the collection or written
+ * to a file. Generator itself is not thread-safe, use {@link #split()} for other threads
+ */
+public class DatasetGenerator {
+    /**
+     * Number of groups generated from one stream
+     */
+    public static final int CHUNK = 1 << 14;
+    private static final int CHUNKS_PER_BATCH = 64;
+    private static final int MAX_CACHED_NAMES = 1 << 16;
+
+    private final SplittableRandom random;
+    private final Tables tables;
+
+    /**
+     * Precomputed values shared by the generator and its splits
+     */
+    private record Tables(
+            int names,
+            String[] groupNames,
+            int adminNames,
+            String[] adminNameCache,
+            double markSkew,
+            double[] semesters,
+            double[] eyeColors,
+            double[] hairColors,
+            double[] countries,
+            ZonedDateTime creationDate
+    ) {}
+
+    /**
+     * @param spec Description of generated groups, later changes of it don't affect the generator
+     */
+    public DatasetGenerator(DatasetSpec spec) {
+        this.random = new SplittableRandom(spec.getSeed());
+        this.tables = new Tables(
+                spec.getNames(),
+                names("GROUP_NAME", spec.getNames()),
+                spec.getAdminNames(),
+                names("ADMIN_NAME", spec.getAdminNames()),
+                spec.getMarkSkew(),
+                cumulative(spec.getSemesterWeights()),
+                cumulative(spec.getEyeColorWeights()),
+                cumulative(spec.getHairColorWeights()),
+                cumulative(spec.getCountryWeights()),
+                ZonedDateTime.now());
+    }
+
+    private DatasetGenerator(SplittableRandom random, Tables tables) {
+        this.random = random;
+        this.tables = tables;
+    }
+
+    /**
+     * @return Generator with the same spec and a new independent stream,
+     * this generator's stream advances
+     */
+    public DatasetGenerator split() {
+        return new DatasetGenerator(random.split(), tables);
+    }
+
+    /**
+     * @return Next group of this generator's stream
+     */
+    public StudyGroup next() {
+        var group = new StudyGroup();
+        group.setName(pickName("GROUP_NAME", tables.names(), tables.groupNames()));
+        group.setCoordinates(new Coordinates(random.nextInt(-100000, 100000), random.nextLong(-215, 10000)));
+        group.setCreationDate(tables.creationDate());
+        group.setStudentsCount(random.nextLong(10, 30));
+        group.setExpelledStudents(random.nextInt(1, 6));
+        double mark = random.nextDouble();
+        group.setAverageMark(2 + 3 * (tables.markSkew() == 1 ? mark : Math.pow(mark, tables.markSkew())));
+        int semester = pick(tables.semesters());
+        group.setSemesterEnum(semester < Semester.values().length ? Semester.values()[semester] : null);
+        group.setGroupAdmin(new Person(
+                pickName("ADMIN_NAME", tables.adminNames(), tables.adminNameCache()),
+                (float) random.nextDouble(150, 200),
+                EyeColor.values()[pick(tables.eyeColors())],
+                HairColor.values()[pick(tables.hairColors())],
+                Country.values()[pick(tables.countries())],
+                new Location(
+                        random.nextLong(-10000, 190000),
+                        random.nextDouble(-10000, 190000),
+                        random.nextLong(-10000, 190000))));
+        return group;
+    }
+
+    /**
+     * Generates groups in chunks on all the processors
+     * @param count Number of groups
+     * @return Groups in order of chunks
+     */
+    public List<StudyGroup> generate(int count) {
+        List<StudyGroup> groups = new ArrayList<>(count);
+        int chunks = (int) ((count + (long) CHUNK - 1) / CHUNK);
+        for (int it = 0; it < chunks; it += CHUNKS_PER_BATCH) {
+            int from = it * CHUNK;
+            groups.addAll(batch(Math.min((long) CHUNKS_PER_BATCH * CHUNK, count - from)));
+        }
+        return groups;
+    }
+
+    /**
+     * Generates groups lazily by batches of chunks, only one batch
+     * is kept in memory, groups are the same as from {@link #generate(int)}
+     * @param count Number of groups
+     * @return Iterator over the groups
+     */
+    public Iterator<StudyGroup> iterator(long count) {
+        return new Iterator<>() {
+            private long left = count;
+            private List<StudyGroup> batch = List.of();
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < batch.size() || left > 0;
+            }
+
+            @Override
+            public StudyGroup next() {
+                if (position == batch.size()) {
+                    if (left == 0)
+                        throw new NoSuchElementException();
+                    batch = batch(Math.min((long) CHUNKS_PER_BATCH * CHUNK, left));
+                    left -= batch.size();
+                    position = 0;
+                }
+                return batch.get(position++);
+            }
+        };
+    }
+
+    /**
+     * Generates several chunks in parallel, streams of the chunks
+     * are split in order, so the result is reproducible
+     */
+    private List<StudyGroup> batch(long count) {
+        int chunks = (int) ((count + CHUNK - 1) / CHUNK);
+        DatasetGenerator[] generators = new DatasetGenerator[chunks];
+        for (int it = 0; it < chunks; ++it) {
+            generators[it] = split();
+        }
+        List<List<StudyGroup>> parts = IntStream.range(0, chunks).parallel().mapToObj(it -> {
+            int size = (int) Math.min(CHUNK, count - (long) it * CHUNK);
+            List<StudyGroup> part = new ArrayList<>(size);
+            for (int index = 0; index < size; ++index) {
+                part.add(generators[it].next());
+            }
+            return part;
+        }).toList();
+        List<StudyGroup> groups = new ArrayList<>((int) count);
+        for (var it : parts) {
+            groups.addAll(it);
+        }
+        return groups;
+    }
+
+    private String pickName(String prefix, int cardinality, String[] cache) {
+        int index = random.nextInt(cardinality);
+        return cache != null ? cache[index] : prefix + index;
+    }
+
+    /**
+     * @return Index of the weight chosen with probability proportional to it
+     */
+    private int pick(double[] cumulative) {
+        double value = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int it = 0; it < cumulative.length - 1; ++it) {
+            if (value < cumulative[it])
+                return it;
+        }
+        return cumulative.length - 1;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int it = 0; it < weights.length; ++it) {
+            sum += weights[it];
+            cumulative[it] = sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Names are built once if there are not too many of them, so groups share the strings
+     */
+    private static String[] names(String prefix, int cardinality) {
+        if (cardinality > MAX_CACHED_NAMES)
+            return null;
+        String[] names = new String[cardinality];
+        for (int it = 0; it < cardinality; ++it) {
+            names[it] = prefix + it;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,160 @@
+package com.armemius.lab5.collection.generator;
+
+import com.armemius.lab5.collection.data.Country;
+import com.armemius.lab5.collection.data.EyeColor;
+import com.armemius.lab5.collection.data.HairColor;
+import com.armemius.lab5.collection.data.Semester;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+
+import java.util.Arrays;
+
+/**
+ * <b>DatasetSpec</b> describes values of generated groups: the seed, number of
+ * distinct names, skew of <i>averageMark</i> and relative frequencies of enum values.
+ * Defaults give the same distribution as <b>insert --random</b> always had
+ *
+ * Options are set with {@link #set(String, String)} from <i>key=value</i> pairs:
+ * <ul>
+ *     <li><i>seed</i> -- seed of the random streams</li>
+ *     <li><i>names</i>, <i>adminNames</i> -- number of distinct names of groups and admins</li>
+ *     <li><i>markSkew</i> -- mark is <i>2 + 3 * u^markSkew</i> for uniform <i>u</i>,
+ *     1 is uniform, greater values give more low marks, lower values give more high marks</li>
+ *     <li><i>semesterEnum</i>, <i>eyeColor</i>, <i>hairColor</i>, <i>nationality</i> --
+ *     weights of values, e.g. <i>THIRD:3,SECOND:1,null:1</i>, values that are not listed get 0</li>
+ * </ul>
+ */
+public class DatasetSpec {
+    private long seed;
+    private int names = 1000;
+    private int adminNames = 1000;
+    private double markSkew = 1;
+    private final double[] semesterWeights = weights(Semester.values().length + 1);
+    private final double[] eyeColorWeights = weights(EyeColor.values().length);
+    private final double[] hairColorWeights = weights(HairColor.values().length);
+    private final double[] countryWeights = weights(Country.values().length);
+
+    /**
+     * @param seed Seed of the random streams
+     */
+    public DatasetSpec(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets one option
+     * @param key Name of the option
+     * @param value Value of the option
+     * @throws CommandArgumentException If option is unknown or its value is incorrect
+     */
+    public void set(String key, String value) {
+        switch (key) {
+            case "seed" -> seed = parseLong(key, value);
+            case "names" -> names = parseCardinality(key, value);
+            case "adminNames" -> adminNames = parseCardinality(key, value);
+            case "markSkew" -> {
+                markSkew = parseDouble(key, value);
+                if (!(markSkew > 0) || Double.isInfinite(markSkew))
+                    throw new CommandArgumentException("Option 'markSkew' must be positive");
+            }
+            case "semesterEnum" -> parseWeights(key, value, Semester.values(), semesterWeights, true);
+            case "eyeColor" -> parseWeights(key, value, EyeColor.values(), eyeColorWeights, false);
+            case "hairColor" -> parseWeights(key, value, HairColor.values(), hairColorWeights, false);
+            case "nationality" -> parseWeights(key, value, Country.values(), countryWeights, false);
+            default -> throw new CommandArgumentException("Unknown option '" + key + "'");
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNames() {
+        return names;
+    }
+
+    public int getAdminNames() {
+        return adminNames;
+    }
+
+    public double getMarkSkew() {
+        return markSkew;
+    }
+
+    /**
+     * @return Weights of semesters in order of {@link Semester#values()}, the last one is for null
+     */
+    public double[] getSemesterWeights() {
+        return semesterWeights.clone();
+    }
+
+    public double[] getEyeColorWeights() {
+        return eyeColorWeights.clone();
+    }
+
+    public double[] getHairColorWeights() {
+        return hairColorWeights.clone();
+    }
+
+    public double[] getCountryWeights() {
+        return countryWeights.clone();
+    }
+
+    private static double[] weights(int length) {
+        double[] weights = new double[length];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    private static long parseLong(String key, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new CommandArgumentException("Option '" + key + "' must be an integer");
+        }
+    }
+
+    private static double parseDouble(String key, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new CommandArgumentException("Option '" + key + "' must be a number");
+        }
+    }
+
+    private static int parseCardinality(String key, String value) {
+        long cardinality = parseLong(key, value);
+        if (cardinality < 1 || cardinality > Integer.MAX_VALUE)
+            throw new CommandArgumentException("Option '" + key + "' must be from 1 to " + Integer.MAX_VALUE);
+        return (int) cardinality;
+    }
+
+    private static <T extends Enum<T>> void parseWeights(String key, String value, T[] constants, double[] weights, boolean nullable) {
+        double[] parsed = new double[weights.length];
+        double total = 0;
+        for (var pair : value.split(",")) {
+            int colon = pair.indexOf(':');
+            if (colon < 0)
+                throw new CommandArgumentException("Expected value:weight pair in option '" + key + "' at '" + pair + "'");
+            String name = pair.substring(0, colon);
+            double weight = parseDouble(key, pair.substring(colon + 1));
+            if (!(weight >= 0) || Double.isInfinite(weight))
+                throw new CommandArgumentException("Weights in option '" + key + "' can't be negative");
+            int index = -1;
+            if (nullable && name.equals("null")) {
+                index = constants.length;
+            } else {
+                for (var it : constants) {
+                    if (it.name().equals(name))
+                        index = it.ordinal();
+                }
+            }
+            if (index < 0)
+                throw new CommandArgumentException("Unknown value '" + name + "' in option '" + key + "'");
+            parsed[index] = weight;
+            total += weight;
+        }
+        if (!(total > 0))
+            throw new CommandArgumentException("Weights in option '" + key + "' can't all be 0");
+        System.arraycopy(parsed, 0, weights, 0, weights.length);
+    }
+}
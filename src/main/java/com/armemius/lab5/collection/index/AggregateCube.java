@@ -0,0 +1,112 @@
+package com.armemius.lab5.collection.index;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <b>AggregateCube</b> keeps pre-aggregated number of groups and
+ * sums of numeric fields for every value of enum field, including null
+ */
+public class AggregateCube implements CollectionIndex {
+    /**
+     * Aggregated values for one value of the key field
+     * @param value Enum constant or null
+     * @param count Number of groups
+     * @param sum Sum of the measured field, 0 if no field was requested
+     */
+    public record Group(Object value, long count, double sum) {}
+
+    private final GroupField key;
+    private final List<GroupField> measures;
+    private final Object[] values;
+    private final long[] counts;
+    private final double[][] sums;
+
+    /**
+     * @param key Enum field to group by
+     * @param measures Numeric fields to sum
+     */
+    public AggregateCube(GroupField key, List<GroupField> measures) {
+        if (key.getKind() != GroupField.Kind.ENUM)
+            throw new IllegalArgumentException("Only enum fields can be used as keys");
+        this.key = key;
+        this.measures = List.copyOf(measures);
+        var constants = key.getEnumType().getEnumConstants();
+        this.values = new Object[constants.length + 1];
+        System.arraycopy(constants, 0, values, 0, constants.length);
+        this.counts = new long[values.length];
+        this.sums = new double[measures.size()][values.length];
+    }
+
+    public GroupField getKey() {
+        return key;
+    }
+
+    /**
+     * @return Fields which sums are kept
+     */
+    public List<GroupField> getMeasures() {
+        return measures;
+    }
+
+    /**
+     * @see CollectionIndex#insert(StudyGroup)
+     */
+    @Override
+    public void insert(StudyGroup group) {
+        int slot = slot(key.get(group));
+        counts[slot]++;
+        for (int it = 0; it < sums.length; ++it) {
+            sums[it][slot] += measures.get(it).getDouble(group);
+        }
+    }
+
+    /**
+     * @see CollectionIndex#remove(StudyGroup)
+     */
+    @Override
+    public void remove(StudyGroup group) {
+        int slot = slot(key.get(group));
+        counts[slot]--;
+        for (int it = 0; it < sums.length; ++it) {
+            sums[it][slot] = counts[slot] == 0 ? 0 : sums[it][slot] - measures.get(it).getDouble(group);
+        }
+    }
+
+    /**
+     * @see CollectionIndex#clear()
+     */
+    @Override
+    public void clear() {
+        for (int it = 0; it < counts.length; ++it) {
+            counts[it] = 0;
+            for (var jt : sums) {
+                jt[it] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns aggregates for every value of key field that has groups
+     * @param measure Field to sum or null if only counts are needed
+     * @return Aggregates ordered by enum constants, null value goes last
+     */
+    public List<Group> groups(GroupField measure) {
+        int measureIndex = measure == null ? -1 : measures.indexOf(measure);
+        if (measure != null && measureIndex < 0)
+            throw new IllegalArgumentException("Sums for field '" + measure + "' are not kept");
+        List<Group> result = new ArrayList<>();
+        for (int it = 0; it < values.length; ++it) {
+            if (counts[it] > 0)
+                result.add(new Group(values[it], counts[it], measureIndex < 0 ? 0 : sums[measureIndex][it]));
+        }
+        return result;
+    }
+
+    private int slot(Object value) {
+        return value == null ? values.length - 1 : ((Enum<?>) value).ordinal();
+    }
+}
@@ -0,0 +1,348 @@
+package com.armemius.lab5.collection.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * <b>Bitmap</b> is a compressed set of non-negative integers
+ *
+ * Values are split into chunks of 65536 by their high 16 bits, like in
+ * Roaring bitmaps. Chunk with up to {@value #ARRAY_LIMIT} values keeps them
+ * as a sorted array of their low 16 bits (2 bytes per value), denser chunks
+ * keep a plain bitset of 8 KB. Empty chunks are not stored at all.
+ * Run containers of Roaring are not used: ids are given from the lowest
+ * free one, so long runs are covered by dense bitset chunks anyway
+ */
+public class Bitmap {
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+    private static final int BIT_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int ARRAY_LIMIT = 4096;
+
+    private Container[] chunks = new Container[0];
+
+    /**
+     * Adds the value to the set
+     * @param value Non-negative value
+     */
+    public void set(int value) {
+        int chunk = value >>> CHUNK_SHIFT;
+        if (chunk >= chunks.length)
+            chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+        if (chunks[chunk] == null)
+            chunks[chunk] = new Container(new char[4], null, 0);
+        chunks[chunk].add(value & BIT_MASK);
+    }
+
+    /**
+     * Removes the value from the set
+     * @param value Non-negative value
+     */
+    public void clear(int value) {
+        int chunk = value >>> CHUNK_SHIFT;
+        if (chunk >= chunks.length || chunks[chunk] == null)
+            return;
+        if (chunks[chunk].remove(value & BIT_MASK) && chunks[chunk].count == 0)
+            chunks[chunk] = null;
+    }
+
+    /**
+     * @param value Non-negative value
+     * @return True if the value is in the set
+     */
+    public boolean get(int value) {
+        int chunk = value >>> CHUNK_SHIFT;
+        if (chunk >= chunks.length || chunks[chunk] == null)
+            return false;
+        return chunks[chunk].contains(value & BIT_MASK);
+    }
+
+    /**
+     * @return Number of values in the set
+     */
+    public long cardinality() {
+        long result = 0;
+        for (var it : chunks) {
+            if (it != null)
+                result += it.count;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return cardinality() == 0;
+    }
+
+    /**
+     * @param other Bitmap to intersect with
+     * @return New bitmap with values that are in both sets
+     */
+    public Bitmap and(Bitmap other) {
+        var result = new Bitmap();
+        int length = Math.min(chunks.length, other.chunks.length);
+        result.chunks = new Container[length];
+        for (int it = 0; it < length; ++it) {
+            if (chunks[it] != null && other.chunks[it] != null)
+                result.chunks[it] = chunks[it].and(other.chunks[it]);
+        }
+        return result;
+    }
+
+    /**
+     * @param other Bitmap to unite with
+     * @return New bitmap with values that are in any of the sets
+     */
+    public Bitmap or(Bitmap other) {
+        var result = new Bitmap();
+        int length = Math.max(chunks.length, other.chunks.length);
+        result.chunks = new Container[length];
+        for (int it = 0; it < length; ++it) {
+            Container left = it < chunks.length ? chunks[it] : null;
+            Container right = it < other.chunks.length ? other.chunks[it] : null;
+            if (left == null)
+                result.chunks[it] = right == null ? null : right.copy();
+            else
+                result.chunks[it] = right == null ? left.copy() : left.or(right);
+        }
+        return result;
+    }
+
+    /**
+     * @param other Bitmap to subtract
+     * @return New bitmap with values that are in this set but not in the other one
+     */
+    public Bitmap andNot(Bitmap other) {
+        var result = new Bitmap();
+        result.chunks = new Container[chunks.length];
+        for (int it = 0; it < chunks.length; ++it) {
+            if (chunks[it] == null)
+                continue;
+            Container right = it < other.chunks.length ? other.chunks[it] : null;
+            result.chunks[it] = right == null ? chunks[it].copy() : chunks[it].andNot(right);
+        }
+        return result;
+    }
+
+    /**
+     * Passes values to the action in ascending order
+     * @param action Action for values
+     */
+    public void forEach(IntConsumer action) {
+        for (int it = 0; it < chunks.length; ++it) {
+            if (chunks[it] != null)
+                chunks[it].forEach(it << CHUNK_SHIFT, action);
+        }
+    }
+
+    /**
+     * Values of one chunk, either a sorted array of low bits
+     * (<i>values</i>) or a bitset (<i>words</i>)
+     */
+    private static final class Container {
+        private char[] values;
+        private long[] words;
+        private int count;
+
+        private Container(char[] values, long[] words, int count) {
+            this.values = values;
+            this.words = words;
+            this.count = count;
+        }
+
+        /**
+         * @return Container for the bits or null if there are none, sparse bits are put into an array
+         */
+        private static Container of(long[] words) {
+            int count = 0;
+            for (var it : words) {
+                count += Long.bitCount(it);
+            }
+            if (count == 0)
+                return null;
+            var result = new Container(null, words, count);
+            if (count <= ARRAY_LIMIT)
+                result.toArray();
+            return result;
+        }
+
+        private boolean contains(int low) {
+            if (words != null)
+                return (words[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch(values, 0, count, (char) low) >= 0;
+        }
+
+        private void add(int low) {
+            if (words != null) {
+                long mask = 1L << low;
+                if ((words[low >>> 6] & mask) == 0) {
+                    words[low >>> 6] |= mask;
+                    ++count;
+                }
+                return;
+            }
+            int position = Arrays.binarySearch(values, 0, count, (char) low);
+            if (position >= 0)
+                return;
+            position = -position - 1;
+            if (count == ARRAY_LIMIT) {
+                toWords();
+                add(low);
+                return;
+            }
+            if (count == values.length)
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_LIMIT));
+            System.arraycopy(values, position, values, position + 1, count - position);
+            values[position] = (char) low;
+            ++count;
+        }
+
+        /**
+         * Bitset is turned back into an array only when it is half as full
+         * as the limit, so values near the limit don't convert it every time
+         * @return True if the value was removed
+         */
+        private boolean remove(int low) {
+            if (words != null) {
+                long mask = 1L << low;
+                if ((words[low >>> 6] & mask) == 0)
+                    return false;
+                words[low >>> 6] &= ~mask;
+                if (--count <= ARRAY_LIMIT / 2)
+                    toArray();
+                return true;
+            }
+            int position = Arrays.binarySearch(values, 0, count, (char) low);
+            if (position < 0)
+                return false;
+            System.arraycopy(values, position + 1, values, position, count - position - 1);
+            --count;
+            return true;
+        }
+
+        private Container copy() {
+            return words != null
+                    ? new Container(null, words.clone(), count)
+                    : new Container(Arrays.copyOf(values, count), null, count);
+        }
+
+        private Container and(Container other) {
+            if (words != null && other.words != null) {
+                long[] result = new long[CHUNK_WORDS];
+                for (int it = 0; it < CHUNK_WORDS; ++it) {
+                    result[it] = words[it] & other.words[it];
+                }
+                return of(result);
+            }
+            Container sparse = words == null ? this : other;
+            Container rest = sparse == this ? other : this;
+            return filter(sparse, rest, true);
+        }
+
+        private Container or(Container other) {
+            if (words == null && other.words == null && count + other.count <= ARRAY_LIMIT) {
+                char[] result = new char[count + other.count];
+                int size = 0;
+                int left = 0;
+                int right = 0;
+                while (left < count || right < other.count) {
+                    if (right == other.count || (left < count && values[left] < other.values[right])) {
+                        result[size++] = values[left++];
+                    } else {
+                        if (left < count && values[left] == other.values[right])
+                            ++left;
+                        result[size++] = other.values[right++];
+                    }
+                }
+                return new Container(result, null, size);
+            }
+            long[] result = bits();
+            if (other.words != null) {
+                for (int it = 0; it < CHUNK_WORDS; ++it) {
+                    result[it] |= other.words[it];
+                }
+            } else {
+                for (int it = 0; it < other.count; ++it) {
+                    result[other.values[it] >>> 6] |= 1L << other.values[it];
+                }
+            }
+            return of(result);
+        }
+
+        private Container andNot(Container other) {
+            if (words == null)
+                return filter(this, other, false);
+            long[] result = words.clone();
+            if (other.words != null) {
+                for (int it = 0; it < CHUNK_WORDS; ++it) {
+                    result[it] &= ~other.words[it];
+                }
+            } else {
+                for (int it = 0; it < other.count; ++it) {
+                    result[other.values[it] >>> 6] &= ~(1L << other.values[it]);
+                }
+            }
+            return of(result);
+        }
+
+        /**
+         * @return Values of the array container that are (or are not) in the other container
+         */
+        private static Container filter(Container sparse, Container other, boolean keep) {
+            char[] result = new char[sparse.count];
+            int size = 0;
+            for (int it = 0; it < sparse.count; ++it) {
+                if (other.contains(sparse.values[it]) == keep)
+                    result[size++] = sparse.values[it];
+            }
+            return size == 0 ? null : new Container(result, null, size);
+        }
+
+        private void forEach(int base, IntConsumer action) {
+            if (words == null) {
+                for (int it = 0; it < count; ++it) {
+                    action.accept(base | values[it]);
+                }
+                return;
+            }
+            for (int it = 0; it < CHUNK_WORDS; ++it) {
+                long word = words[it];
+                while (word != 0) {
+                    action.accept(base | (it << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        /**
+         * @return New bitset with the values of the container
+         */
+        private long[] bits() {
+            if (words != null)
+                return words.clone();
+            long[] result = new long[CHUNK_WORDS];
+            for (int it = 0; it < count; ++it) {
+                result[values[it] >>> 6] |= 1L << values[it];
+            }
+            return result;
+        }
+
+        private void toWords() {
+            words = bits();
+            values = null;
+        }
+
+        private void toArray() {
+            char[] result = new char[count];
+            int size = 0;
+            for (int it = 0; it < CHUNK_WORDS; ++it) {
+                long word = words[it];
+                while (word != 0) {
+                    result[size++] = (char) ((it << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = result;
+            words = null;
+        }
+    }
+}
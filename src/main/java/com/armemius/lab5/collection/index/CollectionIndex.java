@@ -0,0 +1,27 @@
+package com.armemius.lab5.collection.index;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+
+/**
+ * <b>CollectionIndex</b> represents auxiliary structure that
+ * is kept in sync with the collection, every mutating method of
+ * {@link com.armemius.lab5.collection.CollectionManager} notifies its indexes
+ */
+public interface CollectionIndex {
+    /**
+     * Called when group was added to the collection
+     * @param group Added group
+     */
+    void insert(StudyGroup group);
+
+    /**
+     * Called when group was removed from the collection
+     * @param group Removed group, the same instance that was inserted
+     */
+    void remove(StudyGroup group);
+
+    /**
+     * Called when collection was cleared
+     */
+    void clear();
+}
@@ -0,0 +1,78 @@
+package com.armemius.lab5.collection.index;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.collection.data.StudyGroup;
+
+/**
+ * <b>EnumBitmapIndex</b> keeps a {@link Bitmap} of group ids
+ * for every value of enum field, including null
+ */
+public class EnumBitmapIndex implements CollectionIndex {
+    private final GroupField field;
+    private final Bitmap[] bitmaps;
+
+    /**
+     * @param field Enum field to index
+     */
+    public EnumBitmapIndex(GroupField field) {
+        if (field.getKind() != GroupField.Kind.ENUM)
+            throw new IllegalArgumentException("Only enum fields can be indexed with bitmaps");
+        this.field = field;
+        this.bitmaps = new Bitmap[field.getEnumType().getEnumConstants().length + 1];
+        clear();
+    }
+
+    public GroupField getField() {
+        return field;
+    }
+
+    /**
+     * @see CollectionIndex#insert(StudyGroup)
+     */
+    @Override
+    public void insert(StudyGroup group) {
+        bitmaps[slot(field.get(group))].set(group.getId());
+    }
+
+    /**
+     * @see CollectionIndex#remove(StudyGroup)
+     */
+    @Override
+    public void remove(StudyGroup group) {
+        bitmaps[slot(field.get(group))].clear(group.getId());
+    }
+
+    /**
+     * @see CollectionIndex#clear()
+     */
+    @Override
+    public void clear() {
+        for (int it = 0; it < bitmaps.length; ++it) {
+            bitmaps[it] = new Bitmap();
+        }
+    }
+
+    /**
+     * Returns ids of groups with specified value, bitmap must not be modified
+     * @param value Enum constant or null
+     * @return Bitmap of group ids
+     */
+    public Bitmap get(Object value) {
+        return bitmaps[slot(value)];
+    }
+
+    /**
+     * @return New bitmap with ids of all indexed groups
+     */
+    public Bitmap all() {
+        var result = new Bitmap();
+        for (var it : bitmaps) {
+            result = result.or(it);
+        }
+        return result;
+    }
+
+    private int slot(Object value) {
+        return value == null ? bitmaps.length - 1 : ((Enum<?>) value).ordinal();
+    }
+}
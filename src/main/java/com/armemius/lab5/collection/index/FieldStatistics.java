@@ -0,0 +1,122 @@
+package com.armemius.lab5.collection.index;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * <b>FieldStatistics</b> keeps running aggregates of numeric field,
+ * mean and variance are updated in O(1) with Welford's method,
+ * exact minimum and maximum are taken from {@link SortedIndex}
+ */
+public class FieldStatistics implements CollectionIndex {
+    /**
+     * Immutable statistics of the field
+     * @param count Number of values
+     * @param min Minimal value, NaN if there are no values
+     * @param max Maximal value, NaN if there are no values
+     * @param mean Arithmetic mean, NaN if there are no values
+     * @param variance Population variance, NaN if there are no values
+     * @param bucketWidth Width of histogram's buckets
+     * @param histogram Number of values by lower bound of the bucket
+     */
+    public record Snapshot(
+            long count,
+            double min,
+            double max,
+            double mean,
+            double variance,
+            double bucketWidth,
+            NavigableMap<Double, Long> histogram
+    ) {}
+
+    private final SortedIndex index;
+    private final double bucketWidth;
+    private final TreeMap<Long, Long> histogram = new TreeMap<>();
+    private long count = 0;
+    private double mean = 0;
+    private double m2 = 0;
+
+    /**
+     * @param index Sorted index of the field, it is used as ordered multiset for minimum and maximum
+     * @param bucketWidth Width of histogram's buckets
+     */
+    public FieldStatistics(SortedIndex index, double bucketWidth) {
+        this.index = index;
+        this.bucketWidth = bucketWidth;
+    }
+
+    public GroupField getField() {
+        return index.getField();
+    }
+
+    /**
+     * @return Width of histogram's buckets
+     */
+    public double getBucketWidth() {
+        return bucketWidth;
+    }
+
+    /**
+     * @see CollectionIndex#insert(StudyGroup)
+     */
+    @Override
+    public void insert(StudyGroup group) {
+        double value = index.getField().getDouble(group);
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        histogram.merge(bucket(value), 1L, Long::sum);
+    }
+
+    /**
+     * @see CollectionIndex#remove(StudyGroup)
+     */
+    @Override
+    public void remove(StudyGroup group) {
+        double value = index.getField().getDouble(group);
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        double delta = value - mean;
+        count--;
+        mean -= delta / count;
+        m2 = Math.max(0, m2 - delta * (value - mean));
+        histogram.computeIfPresent(bucket(value), (key, amount) -> amount == 1 ? null : amount - 1);
+    }
+
+    /**
+     * @see CollectionIndex#clear()
+     */
+    @Override
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        histogram.clear();
+    }
+
+    /**
+     * @return Current statistics of the field
+     */
+    public Snapshot snapshot() {
+        if (count == 0)
+            return new Snapshot(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, bucketWidth, Collections.emptyNavigableMap());
+        var buckets = new TreeMap<Double, Long>();
+        for (var it : histogram.entrySet()) {
+            buckets.put(it.getKey() * bucketWidth, it.getValue());
+        }
+        var values = index.range(null, false, null, false);
+        return new Snapshot(count, values.firstKey(), values.lastKey(), mean, m2 / count, bucketWidth,
+                Collections.unmodifiableNavigableMap(buckets));
+    }
+
+    private long bucket(double value) {
+        return (long) Math.floor(value / bucketWidth);
+    }
+}
@@ -0,0 +1,112 @@
+package com.armemius.lab5.collection.index;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * <b>SortedIndex</b> keeps groups ordered by value of
+ * numeric field, groups with equal values share one bucket
+ *
+ * Integer values are stored as doubles, so they stay exact
+ * while they fit into 53 bits
+ */
+public class SortedIndex implements CollectionIndex {
+    private final GroupField field;
+    private final TreeMap<Double, Map<Integer, StudyGroup>> tree = new TreeMap<>();
+    private int size = 0;
+
+    /**
+     * @param field Numeric field to index
+     */
+    public SortedIndex(GroupField field) {
+        if (!field.isNumeric())
+            throw new IllegalArgumentException("Only numeric fields can be indexed");
+        this.field = field;
+    }
+
+    public GroupField getField() {
+        return field;
+    }
+
+    /**
+     * @return Number of indexed groups
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @see CollectionIndex#insert(StudyGroup)
+     */
+    @Override
+    public void insert(StudyGroup group) {
+        var bucket = tree.computeIfAbsent(field.getDouble(group), key -> new HashMap<>());
+        if (bucket.put(group.getId(), group) == null)
+            size++;
+    }
+
+    /**
+     * @see CollectionIndex#remove(StudyGroup)
+     */
+    @Override
+    public void remove(StudyGroup group) {
+        double key = field.getDouble(group);
+        var bucket = tree.get(key);
+        if (bucket == null)
+            return;
+        if (bucket.remove(group.getId()) != null)
+            size--;
+        if (bucket.isEmpty())
+            tree.remove(key);
+    }
+
+    /**
+     * @see CollectionIndex#clear()
+     */
+    @Override
+    public void clear() {
+        tree.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns read-only view of buckets within specified bounds
+     * @param from Lower bound, null if unbounded
+     * @param fromInclusive True if lower bound is included
+     * @param to Upper bound, null if unbounded
+     * @param toInclusive True if upper bound is included
+     * @return Buckets ordered by value
+     */
+    public NavigableMap<Double, Map<Integer, StudyGroup>> range(Double from, boolean fromInclusive, Double to, boolean toInclusive) {
+        NavigableMap<Double, Map<Integer, StudyGroup>> view = tree;
+        if (from != null && to != null && (from > to || (from.equals(to) && !(fromInclusive && toInclusive))))
+            return Collections.emptyNavigableMap();
+        if (from != null)
+            view = view.tailMap(from, fromInclusive);
+        if (to != null)
+            view = view.headMap(to, toInclusive);
+        return Collections.unmodifiableNavigableMap(view);
+    }
+
+    /**
+     * Counts groups within specified bounds
+     * @param limit Counting stops as soon as the limit is reached
+     * @return Number of groups within bounds, but not greater than limit
+     * @see SortedIndex#range(Double, boolean, Double, boolean)
+     */
+    public long count(Double from, boolean fromInclusive, Double to, boolean toInclusive, long limit) {
+        long count = 0;
+        for (var it : range(from, fromInclusive, to, toInclusive).values()) {
+            count += it.size();
+            if (count >= limit)
+                return limit;
+        }
+        return count;
+    }
+}
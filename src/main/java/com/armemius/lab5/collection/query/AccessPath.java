@@ -0,0 +1,42 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.function.Consumer;
+
+/**
+ * <b>AccessPath</b> is a way to obtain candidates for the query,
+ * candidates are checked with the query's predicate afterwards
+ */
+public interface AccessPath {
+    /**
+     * Estimates number of candidates
+     * @param limit Estimation may stop as soon as the limit is reached
+     * @return Estimated number of candidates, but not greater than limit
+     */
+    long estimate(long limit);
+
+    /**
+     * Counts candidates exactly
+     * @return Number of candidates
+     */
+    default long count() {
+        return estimate(Long.MAX_VALUE);
+    }
+
+    /**
+     * Passes every candidate to the action
+     * @param action Action for candidates
+     */
+    void forEach(Consumer<StudyGroup> action);
+
+    /**
+     * @return True if candidates are passed in the order of ids
+     */
+    boolean isOrdered();
+
+    /**
+     * @return Human-readable description of the path
+     */
+    String describe();
+}
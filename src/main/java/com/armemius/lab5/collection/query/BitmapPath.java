@@ -0,0 +1,50 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.collection.index.Bitmap;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Access path that visits groups whose ids are set in the {@link Bitmap}
+ */
+class BitmapPath implements AccessPath {
+    private final Bitmap bitmap;
+    private final Map<Integer, StudyGroup> groups;
+    private final String description;
+
+    BitmapPath(Bitmap bitmap, Map<Integer, StudyGroup> groups, String description) {
+        this.bitmap = bitmap;
+        this.groups = groups;
+        this.description = description;
+    }
+
+    Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    @Override
+    public long estimate(long limit) {
+        return Math.min(bitmap.cardinality(), limit);
+    }
+
+    @Override
+    public void forEach(Consumer<StudyGroup> action) {
+        bitmap.forEach(id -> action.accept(groups.get(id)));
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public String describe() {
+        return "bitmap " + description;
+    }
+}
@@ -0,0 +1,42 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.GroupField;
+
+/**
+ * <b>Expression</b> is a node of parsed query
+ */
+public sealed interface Expression {
+    record And(Expression left, Expression right) implements Expression {
+        @Override
+        public String toString() {
+            return "(" + left + " and " + right + ")";
+        }
+    }
+
+    record Or(Expression left, Expression right) implements Expression {
+        @Override
+        public String toString() {
+            return "(" + left + " or " + right + ")";
+        }
+    }
+
+    record Not(Expression operand) implements Expression {
+        @Override
+        public String toString() {
+            return "not " + operand;
+        }
+    }
+
+    /**
+     * Comparison of the field with constant
+     * @param field Field to compare
+     * @param operator Comparison operator
+     * @param value Constant converted to the field's type, see {@link GroupField#parseValue(String)}
+     */
+    record Comparison(GroupField field, Operator operator, Object value) implements Expression {
+        @Override
+        public String toString() {
+            return field + " " + operator.getSymbol() + " " + value;
+        }
+    }
+}
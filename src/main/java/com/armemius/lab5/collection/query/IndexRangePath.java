@@ -0,0 +1,49 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.collection.index.SortedIndex;
+
+import java.util.function.Consumer;
+
+/**
+ * Access path that visits groups within value range of {@link SortedIndex}
+ */
+class IndexRangePath implements AccessPath {
+    private final SortedIndex index;
+    private final Double from;
+    private final boolean fromInclusive;
+    private final Double to;
+    private final boolean toInclusive;
+
+    IndexRangePath(SortedIndex index, Double from, boolean fromInclusive, Double to, boolean toInclusive) {
+        this.index = index;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+    }
+
+    @Override
+    public long estimate(long limit) {
+        return index.count(from, fromInclusive, to, toInclusive, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<StudyGroup> action) {
+        for (var it : index.range(from, fromInclusive, to, toInclusive).values()) {
+            it.values().forEach(action);
+        }
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return "index range " + (fromInclusive ? "[" : "(")
+                + (from == null ? "-inf" : from) + ", " + (to == null ? "+inf" : to)
+                + (toInclusive ? "]" : ")") + " on " + index.getField();
+    }
+}
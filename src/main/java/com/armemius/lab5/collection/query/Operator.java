@@ -0,0 +1,37 @@
+package com.armemius.lab5.collection.query;
+
+/**
+ * Comparison operators of the query language
+ */
+public enum Operator {
+    EQUAL("="),
+    NOT_EQUAL("!="),
+    LOWER("<"),
+    LOWER_OR_EQUAL("<="),
+    GREATER(">"),
+    GREATER_OR_EQUAL(">="),
+    MATCHES("~");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Finds operator by its symbol
+     * @param symbol Symbol to match with
+     * @return Operator or null if there is no such operator
+     */
+    public static Operator bySymbol(String symbol) {
+        for (var it : values()) {
+            if (it.symbol.equals(symbol))
+                return it;
+        }
+        return null;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,16 @@
+package com.armemius.lab5.collection.query;
+
+/**
+ * Result of query planning
+ * @param path Chosen access path
+ * @param exact True if candidates of the path are exactly the matches of the query,
+ *              so the query's predicate doesn't need to be checked
+ */
+public record Plan(AccessPath path, boolean exact) {
+    /**
+     * @return Human-readable description of the plan
+     */
+    public String describe() {
+        return path.describe() + (exact ? " (exact)" : " + filter");
+    }
+}
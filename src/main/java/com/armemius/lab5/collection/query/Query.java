@@ -0,0 +1,46 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.function.Predicate;
+
+/**
+ * <b>Query</b> is a compiled expression of the query language,
+ * e.g. <i>studentsCount > 20 and semesterEnum = THIRD</i>
+ * @see QueryParser
+ */
+public class Query {
+    private final String text;
+    private final Expression expression;
+    private final Predicate<StudyGroup> predicate;
+
+    private Query(String text, Expression expression, Predicate<StudyGroup> predicate) {
+        this.text = text;
+        this.expression = expression;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Parses and compiles the query
+     * @param text Text of the query
+     * @return Compiled query
+     * @throws com.armemius.lab5.commands.exceptions.CommandArgumentException Throws an exception if query is incorrect
+     */
+    public static Query compile(String text) {
+        var expression = QueryParser.parse(text);
+        return new Query(text, expression, QueryCompiler.compile(expression));
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public Predicate<StudyGroup> getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,101 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * <b>QueryCompiler</b> turns {@link Expression} into predicate
+ *
+ * Operators and constants are resolved once during compilation,
+ * so the resulting predicate doesn't inspect the expression tree
+ * for each element
+ */
+class QueryCompiler {
+    private QueryCompiler() {}
+
+    /**
+     * Compiles expression into predicate
+     * @param expression Expression to compile
+     * @return Predicate that returns True for matching groups
+     */
+    static Predicate<StudyGroup> compile(Expression expression) {
+        if (expression instanceof Expression.And and) {
+            var left = compile(and.left());
+            var right = compile(and.right());
+            return group -> left.test(group) && right.test(group);
+        }
+        if (expression instanceof Expression.Or or) {
+            var left = compile(or.left());
+            var right = compile(or.right());
+            return group -> left.test(group) || right.test(group);
+        }
+        if (expression instanceof Expression.Not not) {
+            var operand = compile(not.operand());
+            return group -> !operand.test(group);
+        }
+        var comparison = (Expression.Comparison) expression;
+        return switch (comparison.field().getKind()) {
+            case LONG -> compileLong(comparison.field(), comparison.operator(), (Long) comparison.value());
+            case DOUBLE -> compileDouble(comparison.field(), comparison.operator(), (Double) comparison.value());
+            case STRING -> compileString(comparison.field(), comparison.operator(), (String) comparison.value());
+            case ENUM -> compileEnum(comparison.field(), comparison.operator(), comparison.value());
+        };
+    }
+
+    private static Predicate<StudyGroup> compileLong(GroupField field, Operator operator, long value) {
+        return switch (operator) {
+            case EQUAL -> group -> field.getLong(group) == value;
+            case NOT_EQUAL -> group -> field.getLong(group) != value;
+            case LOWER -> group -> field.getLong(group) < value;
+            case LOWER_OR_EQUAL -> group -> field.getLong(group) <= value;
+            case GREATER -> group -> field.getLong(group) > value;
+            case GREATER_OR_EQUAL -> group -> field.getLong(group) >= value;
+            case MATCHES -> throw new CommandArgumentException("Unsupported operator for field '" + field + "'");
+        };
+    }
+
+    private static Predicate<StudyGroup> compileDouble(GroupField field, Operator operator, double value) {
+        return switch (operator) {
+            case EQUAL -> group -> field.getDouble(group) == value;
+            case NOT_EQUAL -> group -> field.getDouble(group) != value;
+            case LOWER -> group -> field.getDouble(group) < value;
+            case LOWER_OR_EQUAL -> group -> field.getDouble(group) <= value;
+            case GREATER -> group -> field.getDouble(group) > value;
+            case GREATER_OR_EQUAL -> group -> field.getDouble(group) >= value;
+            case MATCHES -> throw new CommandArgumentException("Unsupported operator for field '" + field + "'");
+        };
+    }
+
+    private static Predicate<StudyGroup> compileString(GroupField field, Operator operator, String value) {
+        if (operator == Operator.MATCHES) {
+            try {
+                var pattern = Pattern.compile(value);
+                return group -> pattern.matcher((String) field.get(group)).matches();
+            } catch (PatternSyntaxException ex) {
+                throw new CommandArgumentException("Incorrect regex pattern");
+            }
+        }
+        return switch (operator) {
+            case EQUAL -> group -> value.equals(field.get(group));
+            case NOT_EQUAL -> group -> !value.equals(field.get(group));
+            case LOWER -> group -> ((String) field.get(group)).compareTo(value) < 0;
+            case LOWER_OR_EQUAL -> group -> ((String) field.get(group)).compareTo(value) <= 0;
+            case GREATER -> group -> ((String) field.get(group)).compareTo(value) > 0;
+            case GREATER_OR_EQUAL -> group -> ((String) field.get(group)).compareTo(value) >= 0;
+            default -> throw new CommandArgumentException("Unsupported operator for field '" + field + "'");
+        };
+    }
+
+    private static Predicate<StudyGroup> compileEnum(GroupField field, Operator operator, Object value) {
+        return switch (operator) {
+            case EQUAL -> group -> field.get(group) == value;
+            case NOT_EQUAL -> group -> field.get(group) != value;
+            default -> throw new CommandArgumentException("Unsupported operator for field '" + field + "'");
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+
+/**
+ * <b>QueryParser</b> builds {@link Expression} from the text of query
+ *
+ * Grammar:
+ * <pre>
+ * expression := term ('or' term)*
+ * term       := factor ('and' factor)*
+ * factor     := 'not' factor | '(' expression ')' | field operator value
+ * value      := word | 'quoted string' | "quoted string"
+ * </pre>
+ */
+class QueryParser {
+    private final String text;
+    private int pos = 0;
+
+    private QueryParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses the query
+     * @param text Text of the query
+     * @return Root of the expression tree
+     * @throws CommandArgumentException Throws an exception if query has syntax errors
+     */
+    static Expression parse(String text) {
+        var parser = new QueryParser(text);
+        var expression = parser.expression();
+        parser.skipSpaces();
+        if (parser.pos < text.length())
+            throw parser.error("Unexpected '" + text.substring(parser.pos) + "'");
+        return expression;
+    }
+
+    private Expression expression() {
+        var left = term();
+        while (keyword("or")) {
+            left = new Expression.Or(left, term());
+        }
+        return left;
+    }
+
+    private Expression term() {
+        var left = factor();
+        while (keyword("and")) {
+            left = new Expression.And(left, factor());
+        }
+        return left;
+    }
+
+    private Expression factor() {
+        if (keyword("not"))
+            return new Expression.Not(factor());
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == '(') {
+            pos++;
+            var inner = expression();
+            skipSpaces();
+            if (pos >= text.length() || text.charAt(pos) != ')')
+                throw error("Missing ')'");
+            pos++;
+            return inner;
+        }
+        String path = word();
+        if (path == null)
+            throw error("Field name expected");
+        var field = GroupField.byPath(path);
+        var operator = operator();
+        String literal = value();
+        if (operator == Operator.MATCHES && field.getKind() != GroupField.Kind.STRING)
+            throw error("Operator '~' can be applied only to string fields");
+        if (operator != Operator.EQUAL && operator != Operator.NOT_EQUAL && field.getKind() == GroupField.Kind.ENUM)
+            throw error("Enum fields can be compared only with '=' and '!='");
+        return new Expression.Comparison(field, operator, field.parseValue(literal));
+    }
+
+    private Operator operator() {
+        skipSpaces();
+        int start = pos;
+        while (pos < text.length() && "=!<>~".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        var operator = Operator.bySymbol(text.substring(start, pos));
+        if (operator == null)
+            throw error("Operator expected");
+        return operator;
+    }
+
+    private String value() {
+        skipSpaces();
+        if (pos < text.length() && (text.charAt(pos) == '\'' || text.charAt(pos) == '"')) {
+            char quote = text.charAt(pos);
+            int end = text.indexOf(quote, pos + 1);
+            if (end < 0)
+                throw error("Unclosed quote");
+            String value = text.substring(pos + 1, end);
+            pos = end + 1;
+            return value;
+        }
+        String value = word();
+        if (value == null)
+            throw error("Value expected");
+        return value;
+    }
+
+    private String word() {
+        skipSpaces();
+        int start = pos;
+        while (pos < text.length() && !Character.isWhitespace(text.charAt(pos))
+                && "()=!<>~'\"".indexOf(text.charAt(pos)) < 0) {
+            pos++;
+        }
+        return start == pos ? null : text.substring(start, pos);
+    }
+
+    private boolean keyword(String keyword) {
+        skipSpaces();
+        int end = pos + keyword.length();
+        if (!text.regionMatches(true, pos, keyword, 0, keyword.length()))
+            return false;
+        if (end < text.length() && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '(')
+            return false;
+        pos = end;
+        return true;
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private CommandArgumentException error(String message) {
+        return new CommandArgumentException("Query syntax error at " + pos + ": " + message);
+    }
+}
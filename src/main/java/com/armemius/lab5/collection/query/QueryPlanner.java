@@ -0,0 +1,118 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.collection.index.EnumBitmapIndex;
+import com.armemius.lab5.collection.index.SortedIndex;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * <b>QueryPlanner</b> chooses {@link AccessPath} for the query
+ *
+ * Comparisons on enum fields are answered with bitmaps, which are
+ * combined with bitwise operations for <i>and</i>, <i>or</i> and <i>not</i>.
+ * Comparisons on numeric indexed fields are answered with index ranges,
+ * for conjunctions the most selective path is chosen, disjunctions
+ * use indexes only if every branch can use them, otherwise
+ * planner falls back to full scan
+ */
+public class QueryPlanner {
+    private final NavigableMap<Integer, StudyGroup> groups;
+    private final Map<GroupField, SortedIndex> sortedIndexes;
+    private final Map<GroupField, EnumBitmapIndex> bitmapIndexes;
+
+    private QueryPlanner(NavigableMap<Integer, StudyGroup> groups,
+                         Map<GroupField, SortedIndex> sortedIndexes,
+                         Map<GroupField, EnumBitmapIndex> bitmapIndexes) {
+        this.groups = groups;
+        this.sortedIndexes = sortedIndexes;
+        this.bitmapIndexes = bitmapIndexes;
+    }
+
+    /**
+     * Builds plan for the query
+     * @param query Query to plan
+     * @param groups All the elements of the collection by their ids
+     * @param sortedIndexes Available sorted indexes
+     * @param bitmapIndexes Available bitmap indexes
+     * @return Plan with the smallest estimated number of candidates
+     */
+    public static Plan plan(Query query,
+                            NavigableMap<Integer, StudyGroup> groups,
+                            Map<GroupField, SortedIndex> sortedIndexes,
+                            Map<GroupField, EnumBitmapIndex> bitmapIndexes) {
+        return new QueryPlanner(groups, sortedIndexes, bitmapIndexes).plan(query.getExpression());
+    }
+
+    private Plan plan(Expression expression) {
+        if (expression instanceof Expression.Comparison comparison)
+            return planComparison(comparison);
+        if (expression instanceof Expression.And and) {
+            var left = plan(and.left());
+            var right = plan(and.right());
+            if (left.path() instanceof BitmapPath leftBitmap && right.path() instanceof BitmapPath rightBitmap) {
+                return new Plan(new BitmapPath(leftBitmap.getBitmap().and(rightBitmap.getBitmap()), groups,
+                        "(" + leftBitmap.getDescription() + " AND " + rightBitmap.getDescription() + ")"),
+                        left.exact() && right.exact());
+            }
+            if (left.path() instanceof ScanPath)
+                return new Plan(right.path(), false);
+            if (right.path() instanceof ScanPath)
+                return new Plan(left.path(), false);
+            long leftEstimate = left.path().estimate(groups.size());
+            return new Plan(right.path().estimate(leftEstimate) < leftEstimate ? right.path() : left.path(), false);
+        }
+        if (expression instanceof Expression.Or or) {
+            var left = plan(or.left());
+            var right = plan(or.right());
+            if (left.path() instanceof ScanPath || right.path() instanceof ScanPath)
+                return scan();
+            boolean exact = left.exact() && right.exact();
+            if (left.path() instanceof BitmapPath leftBitmap && right.path() instanceof BitmapPath rightBitmap) {
+                return new Plan(new BitmapPath(leftBitmap.getBitmap().or(rightBitmap.getBitmap()), groups,
+                        "(" + leftBitmap.getDescription() + " OR " + rightBitmap.getDescription() + ")"), exact);
+            }
+            return new Plan(new UnionPath(left.path(), right.path()), exact);
+        }
+        var not = (Expression.Not) expression;
+        var operand = plan(not.operand());
+        if (operand.exact() && operand.path() instanceof BitmapPath bitmap && !bitmapIndexes.isEmpty()) {
+            var all = bitmapIndexes.values().iterator().next().all();
+            return new Plan(new BitmapPath(all.andNot(bitmap.getBitmap()), groups,
+                    "NOT " + bitmap.getDescription()), true);
+        }
+        return scan();
+    }
+
+    private Plan planComparison(Expression.Comparison comparison) {
+        var bitmapIndex = bitmapIndexes.get(comparison.field());
+        if (bitmapIndex != null) {
+            var bitmap = bitmapIndex.get(comparison.value());
+            var description = comparison.field() + "=" + comparison.value();
+            return switch (comparison.operator()) {
+                case EQUAL -> new Plan(new BitmapPath(bitmap, groups, description), true);
+                case NOT_EQUAL -> new Plan(new BitmapPath(bitmapIndex.all().andNot(bitmap), groups,
+                        "NOT " + description), true);
+                default -> scan();
+            };
+        }
+        var index = sortedIndexes.get(comparison.field());
+        if (index == null)
+            return scan();
+        Double value = ((Number) comparison.value()).doubleValue();
+        return switch (comparison.operator()) {
+            case EQUAL -> new Plan(new IndexRangePath(index, value, true, value, true), true);
+            case LOWER -> new Plan(new IndexRangePath(index, null, false, value, false), true);
+            case LOWER_OR_EQUAL -> new Plan(new IndexRangePath(index, null, false, value, true), true);
+            case GREATER -> new Plan(new IndexRangePath(index, value, false, null, false), true);
+            case GREATER_OR_EQUAL -> new Plan(new IndexRangePath(index, value, true, null, false), true);
+            default -> scan();
+        };
+    }
+
+    private Plan scan() {
+        return new Plan(new ScanPath(groups.values()), false);
+    }
+}
@@ -0,0 +1,37 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Access path that visits every element of the collection
+ */
+class ScanPath implements AccessPath {
+    private final Collection<StudyGroup> groups;
+
+    ScanPath(Collection<StudyGroup> groups) {
+        this.groups = groups;
+    }
+
+    @Override
+    public long estimate(long limit) {
+        return Math.min(groups.size(), limit);
+    }
+
+    @Override
+    public void forEach(Consumer<StudyGroup> action) {
+        groups.forEach(action);
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public String describe() {
+        return "full scan";
+    }
+}
@@ -0,0 +1,54 @@
+package com.armemius.lab5.collection.query;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Access path that visits candidates of both paths, every group is visited once
+ */
+class UnionPath implements AccessPath {
+    private final AccessPath left;
+    private final AccessPath right;
+
+    UnionPath(AccessPath left, AccessPath right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public long estimate(long limit) {
+        long count = left.estimate(limit);
+        return count >= limit ? limit : Math.min(limit, count + right.estimate(limit - count));
+    }
+
+    @Override
+    public long count() {
+        long[] count = {0};
+        forEach(group -> count[0]++);
+        return count[0];
+    }
+
+    @Override
+    public void forEach(Consumer<StudyGroup> action) {
+        Set<Integer> visited = new HashSet<>();
+        Consumer<StudyGroup> unique = group -> {
+            if (visited.add(group.getId()))
+                action.accept(group);
+        };
+        left.forEach(unique);
+        right.forEach(unique);
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return "union(" + left.describe() + ", " + right.describe() + ")";
+    }
+}
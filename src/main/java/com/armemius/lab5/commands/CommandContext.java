@@ -1,27 +1,86 @@
 package com.armemius.lab5.commands;
 
+import com.armemius.lab5.commands.params.ParamSet;
 import com.armemius.lab5.io.InputHandler;
 import com.armemius.lab5.io.OutputHandler;
 
 import java.util.List;
-import java.util.Set;
 
 /**
- * This record is essential for transferring data
+ * This class is essential for transferring data
  * from parser to command execution, it contains
  * all the necessary information about command
- * @param rawCommand Raw input command
- * @param args Arguments for command
- * @param params Parameters for command
- * @param inputHandler {@link InputHandler} from {@link CommandParser}
- * @param outputHandler {@link OutputHandler} from {@link CommandParser}
- * @param parser Parser for command
+ *
+ * Parser reuses one context for the commands it runs (a new one
+ * is created only for commands run by other commands), so tasks
+ * must not keep the context after they return
  */
-public record CommandContext(
-        String rawCommand,
-        List<String> args,
-        Set<String> params,
-        InputHandler inputHandler,
-        OutputHandler outputHandler,
-        CommandParser parser
-) {}
+public final class CommandContext {
+    private String rawCommand;
+    private List<String> args;
+    private ParamSet params;
+    private final InputHandler inputHandler;
+    private final OutputHandler outputHandler;
+    private final CommandParser parser;
+
+    /**
+     * @param rawCommand Raw input command
+     * @param args Arguments for command
+     * @param params Parameters for command
+     * @param inputHandler {@link InputHandler} from {@link CommandParser}
+     * @param outputHandler {@link OutputHandler} from {@link CommandParser}
+     * @param parser Parser for command
+     */
+    public CommandContext(String rawCommand, List<String> args, ParamSet params,
+                          InputHandler inputHandler, OutputHandler outputHandler, CommandParser parser) {
+        this.rawCommand = rawCommand;
+        this.args = args;
+        this.params = params;
+        this.inputHandler = inputHandler;
+        this.outputHandler = outputHandler;
+        this.parser = parser;
+    }
+
+    /**
+     * Points the context to the next command
+     */
+    CommandContext reset(CompiledCommand command) {
+        this.rawCommand = command.raw();
+        this.args = command.args();
+        this.params = command.params();
+        return this;
+    }
+
+    /**
+     * @return Raw input command
+     */
+    public String rawCommand() {
+        return rawCommand;
+    }
+
+    /**
+     * @return Arguments for command
+     */
+    public List<String> args() {
+        return args;
+    }
+
+    /**
+     * @return Parameters for command
+     */
+    public ParamSet params() {
+        return params;
+    }
+
+    public InputHandler inputHandler() {
+        return inputHandler;
+    }
+
+    public OutputHandler outputHandler() {
+        return outputHandler;
+    }
+
+    public CommandParser parser() {
+        return parser;
+    }
+}
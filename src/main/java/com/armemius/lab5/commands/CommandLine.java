@@ -0,0 +1,49 @@
+package com.armemius.lab5.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <b>CommandLine</b> cuts a line into commands separated by <i>;</i>,
+ * so several commands can be sent at once, e.g. <i>fill 10; count 3; show</i>
+ *
+ * Separators inside double quotes are kept, <i>\</i> escapes
+ * the next character inside quotes as in inline records
+ */
+public final class CommandLine {
+    private static final char SEPARATOR = ';';
+
+    private CommandLine() {}
+
+    /**
+     * @param line Line with one or several commands
+     * @return Trimmed commands in the order of the line, blank ones are skipped
+     */
+    public static List<String> split(String line) {
+        if (line.indexOf(SEPARATOR) < 0)
+            return line.isBlank() ? List.of() : List.of(line);
+        List<String> commands = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        int length = line.length();
+        for (int it = 0; it < length; ++it) {
+            char c = line.charAt(it);
+            if (quoted && c == '\\') {
+                ++it;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == SEPARATOR && !quoted) {
+                add(commands, line.substring(start, it));
+                start = it + 1;
+            }
+        }
+        add(commands, line.substring(start));
+        return commands;
+    }
+
+    private static void add(List<String> commands, String command) {
+        command = command.strip();
+        if (!command.isEmpty())
+            commands.add(command);
+    }
+}
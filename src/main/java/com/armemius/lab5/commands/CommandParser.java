@@ -1,5 +1,7 @@
 package com.armemius.lab5.commands;
 
+import java.util.List;
+
 /**
  * Command parser stands for parsing
  * raw input and executing the commands
@@ -9,6 +11,32 @@ public interface CommandParser {
      * <b>parse</b> method is used to process
      * the input
      * @param raw String to parse
+     * @return True if command was executed successfully
+     */
+    boolean parse(String raw);
+
+    /**
+     * <b>compile</b> method parses the input without
+     * executing it, so the command can be executed many times
+     * @param raw String to parse
+     * @return Compiled command, errors of parsing are reported on execution
+     */
+    CompiledCommand compile(String raw);
+
+    /**
+     * <b>compile</b> method resolves already separated
+     * parts of the command, so arguments may contain spaces
+     * @param command Name of the command
+     * @param args Arguments of the command
+     * @param params Letters of the parameters, e.g. <i>"gs"</i> for <i>-g -s</i>
+     * @return Compiled command, errors of resolving are reported on execution
+     */
+    CompiledCommand compile(String command, List<String> args, String params);
+
+    /**
+     * <b>execute</b> method runs previously compiled command
+     * @param command Command to execute
+     * @return True if command was executed successfully
      */
-    void parse(String raw);
+    boolean execute(CompiledCommand command);
 }
@@ -0,0 +1,24 @@
+package com.armemius.lab5.commands;
+
+import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.commands.nodes.Node;
+import com.armemius.lab5.commands.params.ParamSet;
+
+import java.util.List;
+
+/**
+ * This record keeps the result of parsing the command, so it
+ * can be executed later without parsing the line again
+ * @param raw Raw input command
+ * @param node Matched node, null if line couldn't be parsed
+ * @param args Arguments for command, the record takes the list as it is, so it must not be changed afterwards
+ * @param params Parameters for command
+ * @param error Error of parsing that is reported when command is executed, null if there is none
+ */
+public record CompiledCommand(
+        String raw,
+        Node node,
+        List<String> args,
+        ParamSet params,
+        CommandRuntimeException error
+) {}
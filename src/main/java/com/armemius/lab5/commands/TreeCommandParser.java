@@ -1,42 +1,60 @@
 package com.armemius.lab5.commands;
 
+import com.armemius.lab5.collection.CollectionManager;
 import com.armemius.lab5.collection.exceptions.CollectionRuntimeException;
 import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.exceptions.CommandBuildException;
 import com.armemius.lab5.commands.exceptions.CommandNotFoundException;
 import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.commands.metrics.CommandMetrics;
+import com.armemius.lab5.commands.metrics.CommandTrace;
 import com.armemius.lab5.commands.nodes.CommandNode;
 import com.armemius.lab5.commands.nodes.Node;
+import com.armemius.lab5.commands.params.ParamSet;
+import com.armemius.lab5.commands.params.ParamSpec;
 import com.armemius.lab5.io.InputHandler;
 import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.TracingOutputHandler;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 /**
  * <b>TreeCommandParser</b> uses commands tree
  * to parse commands
+ *
+ * Input is tokenized in place, commands are looked up
+ * in hash tables of the nodes and parameters are resolved into
+ * bits of {@link ParamSpec}, so parsing of the line creates
+ * only the strings for arguments. Double quotes group words into
+ * one argument and are removed from it
  */
 public class TreeCommandParser implements CommandParser {
-    private final List<Node> root = new ArrayList<>();
+    private static final CommandMetrics parseMetrics = CommandMetrics.of(CommandMetrics.PARSE);
+
+    private final Node root = new CommandNode("");
     private final InputHandler inputHandler;
     private final OutputHandler outputHandler;
+    private final CommandContext context;
+    private int depth = 0;
 
     /**
      * Initializes the root of commands' tree
      * @param inputHandler {@link InputHandler} for user input in commands
-     * @param outputHandler {@link OutputHandler} for commands' output
+     * @param outputHandler {@link OutputHandler} for commands' output, it is
+     *                      wrapped with {@link TracingOutputHandler} if slow log is enabled
      */
     public TreeCommandParser(InputHandler inputHandler, OutputHandler outputHandler) {
         this.inputHandler = inputHandler;
-        this.outputHandler = outputHandler;
+        this.outputHandler = CommandTrace.isEnabled() ? new TracingOutputHandler(outputHandler) : outputHandler;
+        this.context = new CommandContext(null, List.of(), ParamSet.EMPTY, this.inputHandler, this.outputHandler, this);
     }
 
     /**
-     * Adds new node to the root of the tree
+     * Adds new node to the root of the tree, nodes of the command
+     * record their runs to the metrics named after it
      * @param node Node to add
      * @return Returns pointer to the class itself for chaining
      * @throws CommandBuildException Throws an exception if there are troubles with tree construction
@@ -45,88 +63,332 @@ public class TreeCommandParser implements CommandParser {
         if (!(node instanceof CommandNode)) {
             throw new CommandBuildException("Root nodes should be command nodes");
         }
-        root.add(node);
+        root.then(node);
+        node.bindMetrics(CommandMetrics.of(node.getContent()));
         return this;
     }
 
     /**
      * @see CommandParser#parse(String)
      * @param raw String to parse
+     * @return True if command was executed successfully
+     */
+    @Override
+    public boolean parse(@NotNull String raw) {
+        var trace = CommandTrace.begin(raw);
+        try {
+            long start = System.nanoTime();
+            var command = compile(raw);
+            long nanos = System.nanoTime() - start;
+            parseMetrics.record(nanos, command.error() != null);
+            if (trace != null)
+                trace.parsed(nanos, command.args());
+            return execute(command);
+        } finally {
+            if (trace != null)
+                trace.end();
+        }
+    }
+
+    /**
+     * @see CommandParser#compile(String)
+     * @param raw String to parse
+     * @return Compiled command, errors of parsing are kept inside it
      */
     @Override
-    public void parse(@NotNull String raw) {
+    public CompiledCommand compile(@NotNull String raw) {
         raw = raw.trim();
-        // Auxiliary variables
-        String[] command = raw.split("\\s+");
-        int depth = 0;
-        List<Node> tmp = root;
-        boolean found;
+        int length = raw.length();
+        int pos = 0;
+        Node current = root;
         Node lastNode = null;
+        boolean hasParams = false;
         // Command context variables
-        List<String> args = new ArrayList<>();
-        Set<String> params = new HashSet<>();
+        List<String> args = Collections.emptyList();
+        ParamSet params = ParamSet.EMPTY;
 
         try {
             if (raw.isEmpty()) {
                 throw new CommandArgumentException("Empty command");
             }
-            if (command[0].charAt(0) == '-') {
+            if (raw.charAt(0) == '-') {
                 throw new CommandArgumentException("Command can't start with parameter");
             }
-            while (depth < command.length) {
-                found = false;
-                if (command[depth].charAt(0) == '-') {
-                    if (command[depth].length() > 1) {
-                        if (command[depth].charAt(1) == '-') {
-                            var param = command[depth].substring(2);
-                            if (params.contains(param))
-                                throw new CommandArgumentException("Duplicate parameters met");
-                            params.add(param);
-                        } else {
-                            for (String jt : command[depth].substring(1).split("")) {
-                                if (params.contains(jt))
-                                    throw new CommandArgumentException("Duplicate parameters met");
-                                params.add(jt);
-                            }
-                        }
-                        depth++;
-                        continue;
-                    } else {
+            while (pos < length) {
+                int start = pos;
+                pos = skipToken(raw, pos);
+                int end = pos;
+                pos = skipSpaces(raw, pos);
+                if (raw.charAt(start) == '-') {
+                    if (end - start == 1) {
                         throw new CommandArgumentException("Empty parameter provided");
                     }
+                    hasParams = true;
+                    continue;
                 }
-                for (Node it : tmp) {
-                    if (it instanceof CommandNode) {
-                        if (command[depth].equals(it.getContent())) {
-                            lastNode = it;
-                            found = true;
-                            depth++;
-                            tmp = it.getChildren();
-                            break;
-                        }
-                    } else {
-                        args.add(command[depth]);
-                        lastNode = it;
-                        found = true;
-                        depth++;
-                        tmp = it.getChildren();
-                        break;
-                    }
+                var next = current.findChild(raw, start, end);
+                if (next == null) {
+                    throw new CommandNotFoundException(raw.substring(start, end));
                 }
-                if (!found) {
-                    throw new CommandNotFoundException(command[depth]);
+                if (!(next instanceof CommandNode)) {
+                    if (args.isEmpty()) {
+                        args = new ArrayList<>();
+                    }
+                    args.add(argument(raw, start, end));
                 }
+                lastNode = next;
+                current = next;
             }
             if (lastNode == null)
                 throw new CommandNotFoundException("Empty command provided");
-            if (!lastNode.run(new CommandContext(raw, args, params, this.inputHandler, this.outputHandler, this)))
-                throw new CommandRuntimeException("Incomplete or incorrect command");
+            if (hasParams) {
+                long since = CommandTrace.now();
+                params = parseParams(raw, lastNode.getParamSpec());
+                CommandTrace.params(since);
+            }
+            return new CompiledCommand(raw, lastNode, args, params, null);
+        }
+        catch (CommandRuntimeException ex) {
+            return new CompiledCommand(raw, null, Collections.emptyList(), ParamSet.EMPTY, ex);
+        }
+    }
+
+    /**
+     * Arguments are used as they are, raw command is built only to be
+     * shown, arguments are quoted in it the way they are typed in console
+     * @see CommandParser#compile(String, List, String)
+     * @param command Name of the command
+     * @param args Arguments of the command
+     * @param params Letters of the parameters
+     * @return Compiled command, errors of resolving are kept inside it
+     */
+    @Override
+    public CompiledCommand compile(@NotNull String command, @NotNull List<String> args, @NotNull String params) {
+        var raw = new StringBuilder(command);
+        for (var it : args) {
+            appendQuoted(raw.append(' '), it);
+        }
+        if (!params.isEmpty())
+            raw.append(" -").append(params);
+        List<String> values = Collections.emptyList();
+        try {
+            Node node = root.findChild(command, 0, command.length());
+            if (!(node instanceof CommandNode))
+                throw new CommandNotFoundException(command);
+            for (var it : args) {
+                var next = node.findChild(it, 0, it.length());
+                if (next == null)
+                    throw new CommandNotFoundException(it);
+                if (!(next instanceof CommandNode)) {
+                    if (values.isEmpty())
+                        values = new ArrayList<>();
+                    values.add(it);
+                }
+                node = next;
+            }
+            var spec = node.getParamSpec();
+            if (!params.isEmpty() && spec == null)
+                throw new CommandArgumentException("Command doesn't have parameters");
+            long flags = 0;
+            for (int it = 0; it < params.length(); ++it) {
+                flags = addParam(flags, spec.findLetter(params.charAt(it)));
+            }
+            if (flags != 0)
+                spec.checkConflicts(flags);
+            return new CompiledCommand(raw.toString(), node, values, flags == 0 ? ParamSet.EMPTY : spec.toSet(flags), null);
+        }
+        catch (CommandRuntimeException ex) {
+            return new CompiledCommand(raw.toString(), null, Collections.emptyList(), ParamSet.EMPTY, ex);
+        }
+    }
+
+    /**
+     * Failed command marks the transaction of the session as failed,
+     * see {@link CollectionManager#failTransaction()}
+     * @see CommandParser#execute(CompiledCommand)
+     * @param command Command to execute
+     * @return True if command was executed successfully
+     */
+    @Override
+    public boolean execute(CompiledCommand command) {
+        var trace = CommandTrace.begin(command.raw());
+        try {
+            if (command.error() != null)
+                throw command.error();
+            // commands run by other commands (scripts) get their own context
+            var commandContext = depth == 0 ? context : new CommandContext(null, List.of(), ParamSet.EMPTY, inputHandler, outputHandler, this);
+            ++depth;
+            try {
+                if (!command.node().run(commandContext.reset(command)))
+                    throw new CommandRuntimeException("Incomplete or incorrect command");
+                // output of the commands run by scripts is completed before the next command
+                if (depth > 1 && outputHandler.isStreaming())
+                    outputHandler.resume(true);
+            } finally {
+                --depth;
+            }
+            return true;
         }
         catch (CommandNotFoundException ex) {
-            outputHandler.put("Unable to match commands tree with command '" + raw + "'");
+            outputHandler.put("Unable to match commands tree with command '" + command.raw() + "'");
         }
         catch (CommandRuntimeException | CollectionRuntimeException ex) {
             outputHandler.put("Error while processing the command: '" + ex.getMessage() + "'");
         }
+        finally {
+            if (trace != null)
+                trace.end();
+        }
+        CollectionManager.failTransaction();
+        return false;
+    }
+
+    /**
+     * Resolves parameter tokens of the line into bits of {@link ParamSpec}
+     */
+    private static ParamSet parseParams(String raw, ParamSpec spec) {
+        if (spec == null)
+            throw new CommandArgumentException("Command doesn't have parameters");
+        long flags = 0;
+        int length = raw.length();
+        int pos = 0;
+        while (pos < length) {
+            int start = pos;
+            pos = skipToken(raw, pos);
+            int end = pos;
+            pos = skipSpaces(raw, pos);
+            if (raw.charAt(start) != '-')
+                continue;
+            if (raw.charAt(start + 1) == '-') {
+                flags = addParam(flags, spec.findName(raw, start + 2, end));
+            } else {
+                for (int it = start + 1; it < end; ++it) {
+                    flags = addParam(flags, spec.findLetter(raw.charAt(it)));
+                }
+            }
+        }
+        spec.checkConflicts(flags);
+        return spec.toSet(flags);
+    }
+
+    private static long addParam(long flags, int bit) {
+        if (bit < 0)
+            throw new CommandArgumentException("Unknown parameter options");
+        if ((flags & (1L << bit)) != 0)
+            throw new CommandArgumentException("Duplicate parameters met");
+        return flags | (1L << bit);
+    }
+
+    /**
+     * Token ends at a space outside of double quotes, token that starts
+     * with <i>{</i> also lasts until its braces are balanced, so quoted
+     * values and JSON records are single tokens and their spaces and
+     * minuses are not taken for separators and parameters
+     */
+    private static int skipToken(String raw, int pos) {
+        int depth = raw.charAt(pos) == '{' ? 0 : -1;
+        while (pos < raw.length()) {
+            char c = raw.charAt(pos);
+            if (c == '"') {
+                pos = skipQuoted(raw, pos);
+                continue;
+            }
+            if (depth >= 0 && c == '{') {
+                ++depth;
+            } else if (depth > 0 && c == '}') {
+                --depth;
+            } else if (depth <= 0 && isSpace(c)) {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Cuts the argument from the token, double quotes are removed and
+     * <i>\</i> escapes the next character inside them, so <i>"a b"</i> is
+     * the argument <i>a b</i>. JSON records are kept as they are
+     * @throws CommandArgumentException If a quote is not closed
+     */
+    private static String argument(String raw, int start, int end) {
+        int quote = start;
+        while (quote < end && raw.charAt(quote) != '"') {
+            quote++;
+        }
+        if (quote == end || raw.charAt(start) == '{')
+            return raw.substring(start, end);
+        var result = new StringBuilder(end - start).append(raw, start, quote);
+        boolean quoted = false;
+        for (int it = quote; it < end; ++it) {
+            char c = raw.charAt(it);
+            if (c == '"') {
+                quoted = !quoted;
+                continue;
+            }
+            if (quoted && c == '\\' && it + 1 < end)
+                c = raw.charAt(++it);
+            result.append(c);
+        }
+        if (quoted)
+            throw new CommandArgumentException("Unterminated quote in '" + raw.substring(start, end) + "'");
+        return result.toString();
+    }
+
+    /**
+     * Skips the quoted string, <i>\</i> escapes the next character as in inline records
+     * @return Position after the closing quote or the end of line if it is not closed
+     */
+    private static int skipQuoted(String raw, int pos) {
+        pos++;
+        while (pos < raw.length() && raw.charAt(pos) != '"') {
+            if (raw.charAt(pos) == '\\')
+                pos++;
+            pos++;
+        }
+        return Math.min(pos + 1, raw.length());
+    }
+
+    /**
+     * Appends the argument, in double quotes if it is empty, has spaces,
+     * quotes or starts with a minus, so the line reads as the same arguments.
+     * JSON records are tokenized by braces, so they are appended as they are
+     */
+    private static void appendQuoted(StringBuilder raw, String arg) {
+        boolean quote = arg.isEmpty() || arg.charAt(0) == '-';
+        if (!quote && arg.charAt(0) == '{') {
+            raw.append(arg);
+            return;
+        }
+        for (int it = 0; it < arg.length() && !quote; ++it) {
+            char c = arg.charAt(it);
+            quote = isSpace(c) || c == '"' || c == '\\';
+        }
+        if (!quote) {
+            raw.append(arg);
+            return;
+        }
+        raw.append('"');
+        for (int it = 0; it < arg.length(); ++it) {
+            char c = arg.charAt(it);
+            if (c == '"' || c == '\\')
+                raw.append('\\');
+            raw.append(c);
+        }
+        raw.append('"');
+    }
+
+    private static int skipSpaces(String raw, int pos) {
+        while (pos < raw.length() && isSpace(raw.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Matches the same characters as <i>\\s</i> in regular expressions
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 }
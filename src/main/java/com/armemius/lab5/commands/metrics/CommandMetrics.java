@@ -0,0 +1,96 @@
+package com.armemius.lab5.commands.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>CommandMetrics</b> keeps latency histogram and number of failures
+ * of one command. Metrics are shared by all the sessions: nodes of every
+ * parser get the metrics of their command when the tree is built, so
+ * recording needs neither lookups nor allocations
+ * @see com.armemius.lab5.commands.nodes.Node#run(com.armemius.lab5.commands.CommandContext)
+ */
+public class CommandMetrics {
+    /**
+     * Name of the metrics for tokenizing and resolving of command lines
+     */
+    public static final String PARSE = "(parse)";
+
+    private static final Map<String, CommandMetrics> registry = new ConcurrentSkipListMap<>();
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Metrics of one command at the moment of snapshot
+     * @param command Name of the command
+     * @param count Number of runs
+     * @param errors Number of failed runs
+     * @param latency Latencies of all the runs
+     */
+    public record Snapshot(String command, long count, long errors, LatencyHistogram.Snapshot latency) {
+        /**
+         * @return Share of failed runs from 0 to 1
+         */
+        public double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+
+    private CommandMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param name Name of the command
+     * @return Metrics of the command, they are created on the first call
+     */
+    public static CommandMetrics of(String name) {
+        return registry.computeIfAbsent(name, CommandMetrics::new);
+    }
+
+    /**
+     * @return Snapshots of all the commands ordered by name, commands that never ran are skipped
+     */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> result = new ArrayList<>();
+        for (var it : registry.values()) {
+            var latency = it.latency.snapshot();
+            if (latency.total() > 0)
+                result.add(new Snapshot(it.name, latency.total(), it.errors.get(), latency));
+        }
+        return result;
+    }
+
+    /**
+     * Removes recorded values of all the commands
+     */
+    public static void reset() {
+        for (var it : registry.values()) {
+            it.latency.reset();
+            it.errors.set(0);
+        }
+    }
+
+    /**
+     * @return Name of the command
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one run of the command
+     * @param nanos Duration of the run
+     * @param failed True if the run has failed
+     */
+    public void record(long nanos, boolean failed) {
+        latency.record(nanos);
+        if (failed)
+            errors.incrementAndGet();
+    }
+}
@@ -0,0 +1,214 @@
+package com.armemius.lab5.commands.metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <b>CommandTrace</b> splits time of one command into phases: tokenizing,
+ * resolving of parameters, operations of the collection manager, output and
+ * the rest of the task. Commands that run longer than the threshold are written
+ * to the slow log with their raw text, sizes of arguments, number of elements
+ * touched by the collection manager and number of characters output
+ *
+ * Tracing is enabled by environment variable '<i>LAB_5_SLOW_MS</i>' with the
+ * threshold in milliseconds, log is written to '<i>LAB_5_SLOW_LOG</i>'
+ * (<i>./slow.log</i> by default). When it is not set, every call returns
+ * right away. Trace of a thread is reused, so tracing doesn't allocate
+ * unless the command is slow. Commands run by other commands (scripts)
+ * are accounted to the outer one
+ */
+public final class CommandTrace {
+    private static final String DEFAULT_LOG = "./slow.log";
+    private static final long threshold;
+    private static final String logPath;
+    private static final ThreadLocal<CommandTrace> current = ThreadLocal.withInitial(CommandTrace::new);
+    private static Writer log = null;
+
+    static {
+        long value = -1;
+        var env = System.getenv("LAB_5_SLOW_MS");
+        if (env != null) {
+            try {
+                value = Math.round(Double.parseDouble(env) * 1e6);
+            } catch (NumberFormatException e) {
+                System.err.println("Incorrect value of 'LAB_5_SLOW_MS': '" + env + "', slow log is disabled");
+            }
+        }
+        threshold = value;
+        var path = System.getenv("LAB_5_SLOW_LOG");
+        logPath = path == null ? DEFAULT_LOG : path;
+    }
+
+    private int depth = 0;
+    private String raw;
+    private List<String> args;
+    private long start;
+    private long parse;
+    private long params;
+    private int collectionDepth;
+    private long collection;
+    private long output;
+    private long outputInCollection;
+    private long rows;
+    private long chars;
+
+    private CommandTrace() {}
+
+    /**
+     * @return True if slow log is enabled
+     */
+    public static boolean isEnabled() {
+        return threshold >= 0;
+    }
+
+    /**
+     * Starts tracing of the command, every call must be followed by {@link #end()}
+     * @param raw Raw text of the command
+     * @return Trace of the thread or null if tracing is disabled
+     */
+    public static CommandTrace begin(String raw) {
+        if (threshold < 0)
+            return null;
+        var trace = current.get();
+        if (trace.depth++ > 0)
+            return trace;
+        trace.raw = raw;
+        trace.args = null;
+        trace.parse = 0;
+        trace.params = 0;
+        trace.collectionDepth = 0;
+        trace.collection = 0;
+        trace.output = 0;
+        trace.outputInCollection = 0;
+        trace.rows = 0;
+        trace.chars = 0;
+        trace.start = System.nanoTime();
+        return trace;
+    }
+
+    /**
+     * Sets the time of parsing and arguments of the command
+     * @param nanos Time of tokenizing and resolving of the command line
+     * @param args Arguments of the command
+     */
+    public void parsed(long nanos, List<String> args) {
+        if (depth != 1)
+            return;
+        parse = nanos;
+        this.args = args;
+    }
+
+    /**
+     * Ends tracing of the command, outermost command
+     * is written to the slow log if it is slow
+     */
+    public void end() {
+        if (--depth > 0)
+            return;
+        long total = System.nanoTime() - start;
+        if (total >= threshold)
+            write(total);
+        raw = null;
+        args = null;
+    }
+
+    /**
+     * @return Current time for phases or 0 if tracing is disabled
+     */
+    public static long now() {
+        return threshold < 0 ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Adds time of resolving parameters
+     * @param since Result of {@link #now()} before resolving
+     */
+    public static void params(long since) {
+        if (since == 0)
+            return;
+        current.get().params += System.nanoTime() - since;
+    }
+
+    /**
+     * Marks the start of a collection manager operation
+     * @return Value for {@link #exitCollection(long, long)}
+     */
+    public static long enterCollection() {
+        if (threshold < 0)
+            return 0;
+        var trace = current.get();
+        if (trace.depth == 0)
+            return 0;
+        ++trace.collectionDepth;
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a collection manager operation, time and
+     * elements of nested operations are counted only by the outermost one
+     * @param since Result of {@link #enterCollection()}
+     * @param rows Number of elements visited or changed by the operation
+     */
+    public static void exitCollection(long since, long rows) {
+        if (since == 0)
+            return;
+        var trace = current.get();
+        if (trace.collectionDepth == 0 || --trace.collectionDepth > 0)
+            return;
+        trace.collection += System.nanoTime() - since;
+        trace.rows += rows;
+    }
+
+    /**
+     * Adds time of output
+     * @param since Result of {@link #now()} before output
+     * @param chars Number of characters output
+     */
+    public static void output(long since, int chars) {
+        if (since == 0)
+            return;
+        var trace = current.get();
+        if (trace.depth == 0)
+            return;
+        long nanos = System.nanoTime() - since;
+        trace.output += nanos;
+        trace.chars += chars;
+        if (trace.collectionDepth > 0)
+            trace.outputInCollection += nanos;
+    }
+
+    private void write(long total) {
+        long collectionOnly = collection - outputInCollection;
+        long task = total - parse - collectionOnly - output;
+        var sizes = new StringBuilder("[");
+        if (args != null) {
+            for (int it = 0; it < args.size(); ++it) {
+                if (it > 0)
+                    sizes.append(", ");
+                sizes.append(args.get(it).length());
+            }
+        }
+        sizes.append(']');
+        String line = String.format(Locale.ROOT,
+                "%s %.3f ms: tokenize %.3f, params %.3f, collection %.3f, output %.3f, task %.3f; rows %d, output chars %d, args %s, command: %s%n",
+                Instant.now(), total / 1e6, (parse - params) / 1e6, params / 1e6, collectionOnly / 1e6,
+                output / 1e6, task / 1e6, rows, chars, sizes, raw);
+        append(line);
+    }
+
+    private static synchronized void append(String line) {
+        try {
+            if (log == null)
+                log = new BufferedWriter(new FileWriter(logPath, true));
+            log.write(line);
+            log.flush();
+        } catch (IOException e) {
+            System.err.println("Unable to write slow log '" + logPath + "': " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.armemius.lab5.commands.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <b>LatencyHistogram</b> counts latencies in nanoseconds in fixed log-linear
+ * buckets in the manner of HDR histograms: values below 64 ns have their own
+ * buckets, every following power of two is split into 32 buckets, so relative
+ * error of percentiles is below 3.2%. Values above ~18 minutes are counted
+ * in the last bucket
+ *
+ * Buckets are allocated once, recording is lock-free and doesn't allocate,
+ * so it can be called on every command
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int LINEAR = 1 << SUB_BITS;
+    private static final int HALF = LINEAR >> 1;
+    private static final int MAX_EXPONENT = 39;
+    private static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BITS + 1) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Immutable copy of the histogram
+     * @param counts Counts of the buckets
+     * @param total Number of recorded values
+     * @param sum Sum of recorded values in nanoseconds
+     * @param max Greatest recorded value in nanoseconds
+     */
+    public record Snapshot(long[] counts, long total, long sum, long max) {
+        /**
+         * @param quantile Quantile from 0 to 1, e.g. 0.99
+         * @return Upper bound of the bucket that contains the quantile in nanoseconds,
+         * never greater than the maximum, 0 if histogram is empty
+         */
+        public long percentile(double quantile) {
+            if (total == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int it = 0; it < counts.length; ++it) {
+                seen += counts[it];
+                if (seen >= rank)
+                    return Math.min(upperBound(it), max);
+            }
+            return max;
+        }
+
+        /**
+         * @return Mean of recorded values in nanoseconds, 0 if histogram is empty
+         */
+        public double mean() {
+            return total == 0 ? 0 : (double) sum / total;
+        }
+    }
+
+    /**
+     * Records one value
+     * @param nanos Latency in nanoseconds, negative values are counted as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        sum.addAndGet(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Copies the histogram, values recorded concurrently
+     * may be partially included
+     * @return Snapshot of the histogram
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int it = 0; it < BUCKETS; ++it) {
+            copy[it] = counts.get(it);
+            count += copy[it];
+        }
+        return new Snapshot(copy, count, sum.get(), max.get());
+    }
+
+    /**
+     * Removes all the recorded values
+     */
+    public void reset() {
+        for (int it = 0; it < BUCKETS; ++it) {
+            counts.set(it, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return BUCKETS - 1;
+        int shift = exponent - SUB_BITS + 1;
+        return LINEAR + (exponent - SUB_BITS) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR)
+            return index;
+        int octave = (index - LINEAR) / HALF;
+        int shift = octave + 1;
+        long top = HALF + (index - LINEAR) % HALF;
+        return ((top + 1) << shift) - 1;
+    }
+}
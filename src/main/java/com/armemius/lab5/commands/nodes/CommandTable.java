@@ -0,0 +1,71 @@
+package com.armemius.lab5.commands.nodes;
+
+/**
+ * <b>CommandTable</b> is an open addressing hash table of command nodes
+ *
+ * Lookups are made by region of the string, so the parser
+ * doesn't need to create substrings to find the command
+ */
+class CommandTable {
+    private Node[] slots = new Node[8];
+    private int size = 0;
+
+    /**
+     * Finds command node with name equal to the region of the string
+     * @param source String that contains the name
+     * @param from Start of the region, inclusive
+     * @param to End of the region, exclusive
+     * @return Matching node or null if there is no such node
+     */
+    Node find(String source, int from, int to) {
+        int hash = 0;
+        for (int it = from; it < to; ++it) {
+            hash = 31 * hash + source.charAt(it);
+        }
+        int mask = slots.length - 1;
+        for (int it = spread(hash) & mask; slots[it] != null; it = (it + 1) & mask) {
+            var content = slots[it].getContent();
+            if (content.length() == to - from && source.startsWith(content, from))
+                return slots[it];
+        }
+        return null;
+    }
+
+    /**
+     * Adds command node to the table
+     * @param node Node to add
+     * @return False if there is a node with the same name
+     */
+    boolean add(Node node) {
+        var content = node.getContent();
+        if (find(content, 0, content.length()) != null)
+            return false;
+        if ((size + 1) * 2 > slots.length)
+            resize();
+        insert(node);
+        size++;
+        return true;
+    }
+
+    private void resize() {
+        var old = slots;
+        slots = new Node[old.length * 2];
+        for (var it : old) {
+            if (it != null)
+                insert(it);
+        }
+    }
+
+    private void insert(Node node) {
+        int mask = slots.length - 1;
+        int it = spread(node.getContent().hashCode()) & mask;
+        while (slots[it] != null) {
+            it = (it + 1) & mask;
+        }
+        slots[it] = node;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -22,7 +22,7 @@ public class DataNode extends Node {
         if (node instanceof CommandNode) {
             throw new CommandBuildException("Can't place command extension nodes after data nodes");
         }
-        getChildren().add(node);
+        attach(node);
         return this;
     }
 }
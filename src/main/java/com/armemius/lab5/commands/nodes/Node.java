@@ -2,15 +2,13 @@ package com.armemius.lab5.commands.nodes;
 
 
 import com.armemius.lab5.commands.CommandContext;
-import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.exceptions.CommandBuildException;
-import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.commands.metrics.CommandMetrics;
+import com.armemius.lab5.commands.params.ParamSpec;
 import com.armemius.lab5.tasks.Task;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * <b>Node</b> class represents possible path
@@ -19,7 +17,11 @@ import java.util.Set;
 public abstract class Node {
     private final String content;
     private final List<Node> children = new ArrayList<>();
+    private final CommandTable commands = new CommandTable();
+    private Node data = null;
     private Task task;
+    private ParamSpec paramSpec;
+    private CommandMetrics metrics;
 
     /**
      * Constructor for <b>Node</b> requires <i>String</i>
@@ -39,6 +41,19 @@ public abstract class Node {
         return children;
     }
 
+    /**
+     * Finds child node that matches the token, command nodes are matched
+     * by name, if none of them matches, the first data node is returned
+     * @param raw String that contains the token
+     * @param from Start of the token, inclusive
+     * @param to End of the token, exclusive
+     * @return Matching child node or null if there is no such node
+     */
+    public Node findChild(String raw, int from, int to) {
+        var node = commands.find(raw, from, to);
+        return node != null ? node : data;
+    }
+
     /**
      * Getter for content
      * @return <b>Node</b>'s name that represents command
@@ -48,7 +63,25 @@ public abstract class Node {
     }
 
     /**
-     * This method is called when parser matched a node
+     * Getter for execution task
+     * @return Task of the node or null if node can't be executed
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Getter for parameters specification
+     * @return Compiled parameters of the node's task or null if task doesn't have parameters
+     */
+    public ParamSpec getParamSpec() {
+        return paramSpec;
+    }
+
+    /**
+     * This method is called when parser matched a node,
+     * parameters are already validated by the parser with {@link ParamSpec}.
+     * Duration of the task is recorded to the metrics of the command
      * @param context {@link CommandContext} contains necessary information for command to run
      * @return Returns True if command have an execution task, otherwise returns False
      */
@@ -56,53 +89,35 @@ public abstract class Node {
         if (task == null) {
             return false;
         }
-        var taskClass = task.getClass();
-        var annotation = taskClass.getAnnotation(Parametrized.class);
-        if (annotation != null) {
-            var raw = context.params();
-            Set<String> baked = new HashSet<>();
-            for (var it : annotation.params()) {
-                if (raw.contains(it.letter())) {
-                    if (raw.contains(it.name())) {
-                        throw new CommandArgumentException("Duplicate parameters met");
-                    } else {
-                        if (baked.contains(it.letter())) {
-                            throw new CommandArgumentException("Duplicate parameters met");
-                        }
-                        baked.add(it.letter());
-                        raw.remove(it.letter());
-                    }
-                } else if (raw.contains(it.name())) {
-                    if (baked.contains(it.letter())) {
-                        throw new CommandArgumentException("Duplicate parameters met");
-                    }
-                    baked.add(it.letter());
-                    raw.remove(it.name());
-                }
-            }
-            if (!raw.isEmpty()) {
-                throw new CommandArgumentException("Unknown parameter options");
-            }
-            for (var it : annotation.incompatible()) {
-                int counter = 0;
-                for (var jt : it.value()) {
-                    if (baked.contains(jt)) {
-                        counter++;
-                    }
-                }
-                if (counter > 1) {
-                    throw new CommandArgumentException("Incompatible parameters met");
-                }
-            }
-            raw.addAll(baked);
-        } else if (!context.params().isEmpty()) {
-            throw new CommandArgumentException("Command doesn't have parameters");
+        if (metrics == null) {
+            task.execute(context);
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            task.execute(context);
+            failed = false;
+        } finally {
+            metrics.record(System.nanoTime() - start, failed);
         }
-
-        task.execute(context);
         return true;
     }
 
+    /**
+     * Sets metrics for the node and all of its descendants,
+     * nodes that already have them are not visited again (vararg nodes loop)
+     * @param metrics Metrics of the command the nodes belong to
+     */
+    public void bindMetrics(CommandMetrics metrics) {
+        if (this.metrics == metrics)
+            return;
+        this.metrics = metrics;
+        for (var it : children) {
+            it.bindMetrics(metrics);
+        }
+    }
+
     /**
      * Adds new node to the current node
      * @param node Node to add
@@ -110,21 +125,38 @@ public abstract class Node {
      * @throws CommandBuildException Throws an exception if there are troubles with tree construction
      */
     public Node then(Node node) throws CommandBuildException {
+        if (node instanceof CommandNode && findChild(node.getContent(), 0, node.getContent().length()) instanceof CommandNode) {
+            throw new CommandBuildException("Duplicate command '" + node.getContent() + "'");
+        }
+        attach(node);
+        return this;
+    }
+
+    /**
+     * Adds child node without checks, command nodes are
+     * placed before data nodes
+     * @param node Node to add
+     */
+    protected void attach(Node node) {
         if (node instanceof CommandNode) {
             children.add(0, node);
+            commands.add(node);
         } else {
             children.add(node);
+            if (data == null)
+                data = node;
         }
-        return this;
     }
 
     /**
-     * Sets an execution task for current node
+     * Sets an execution task for current node,
+     * task's parameters are compiled at this point
      * @param task <b>Task</b> to execute
      * @return Pointer to the current node for chaining
      */
     public Node executes(Task task) {
         this.task = task;
+        this.paramSpec = ParamSpec.of(task.getClass());
         return this;
     }
 }
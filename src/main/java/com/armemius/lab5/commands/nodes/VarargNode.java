@@ -0,0 +1,22 @@
+package com.armemius.lab5.commands.nodes;
+
+import com.armemius.lab5.commands.exceptions.CommandBuildException;
+
+/**
+ * Node that represents variable amount of data input from the user,
+ * it matches all the remaining arguments of the command
+ */
+public class VarargNode extends DataNode {
+    public VarargNode() {
+        super();
+        attach(this);
+    }
+
+    /**
+     * @see Node#then(Node)
+     */
+    @Override
+    public Node then(Node node) throws CommandBuildException {
+        throw new CommandBuildException("Can't place nodes after vararg nodes");
+    }
+}
@@ -0,0 +1,53 @@
+package com.armemius.lab5.commands.params;
+
+import java.util.StringJoiner;
+
+/**
+ * <b>ParamSet</b> is an immutable set of command's parameters
+ * stored as bits of {@link ParamSpec}
+ */
+public final class ParamSet {
+    /**
+     * Set without parameters
+     */
+    public static final ParamSet EMPTY = new ParamSet(null, 0);
+
+    private final ParamSpec spec;
+    private final long flags;
+
+    ParamSet(ParamSpec spec, long flags) {
+        this.spec = spec;
+        this.flags = flags;
+    }
+
+    /**
+     * @param letter Short name of the parameter
+     * @return True if parameter was provided either by short or by full name
+     */
+    public boolean contains(String letter) {
+        if (flags == 0)
+            return false;
+        int bit = spec.findLetter(letter);
+        return bit >= 0 && (flags & (1L << bit)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return flags == 0;
+    }
+
+    /**
+     * @return Bits of the parameters, see {@link ParamSpec}
+     */
+    public long flags() {
+        return flags;
+    }
+
+    @Override
+    public String toString() {
+        var joiner = new StringJoiner(", ", "[", "]");
+        for (long it = flags; it != 0; it &= it - 1) {
+            joiner.add(spec.letter(Long.numberOfTrailingZeros(it)));
+        }
+        return joiner.toString();
+    }
+}
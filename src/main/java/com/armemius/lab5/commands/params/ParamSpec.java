@@ -0,0 +1,115 @@
+package com.armemius.lab5.commands.params;
+
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+
+import java.util.Arrays;
+
+/**
+ * <b>ParamSpec</b> is compiled form of {@link Parametrized} annotation
+ *
+ * Every parameter is assigned a bit, so parameters of the command
+ * are stored in one long value and all the checks are bit operations
+ */
+public class ParamSpec {
+    private final String[] letters;
+    private final String[] names;
+    private final long[] conflicts;
+    private final byte[] byLetter = new byte[128];
+    private final ParamSet empty;
+
+    private ParamSpec(Parametrized annotation) {
+        var params = annotation.params();
+        if (params.length > Long.SIZE)
+            throw new IllegalArgumentException("Too many parameters");
+        letters = new String[params.length];
+        names = new String[params.length];
+        Arrays.fill(byLetter, (byte) -1);
+        for (int it = 0; it < params.length; ++it) {
+            var letter = params[it].letter();
+            if (letter.length() != 1 || letter.charAt(0) >= byLetter.length)
+                throw new IllegalArgumentException("Parameter letter should be one ASCII character");
+            letters[it] = letter;
+            names[it] = params[it].name();
+            byLetter[letter.charAt(0)] = (byte) it;
+        }
+        var incompatible = annotation.incompatible();
+        conflicts = new long[incompatible.length];
+        for (int it = 0; it < incompatible.length; ++it) {
+            for (var jt : incompatible[it].value()) {
+                int bit = findLetter(jt);
+                if (bit >= 0)
+                    conflicts[it] |= 1L << bit;
+            }
+        }
+        empty = new ParamSet(this, 0);
+    }
+
+    /**
+     * Compiles parameters of the task
+     * @param taskClass Class of the task
+     * @return Compiled specification or null if task is not {@link Parametrized}
+     */
+    public static ParamSpec of(Class<?> taskClass) {
+        var annotation = taskClass.getAnnotation(Parametrized.class);
+        return annotation == null ? null : new ParamSpec(annotation);
+    }
+
+    /**
+     * @param letter Short name of the parameter
+     * @return Bit of the parameter or -1 if there is no such parameter
+     */
+    public int findLetter(char letter) {
+        return letter < byLetter.length ? byLetter[letter] : -1;
+    }
+
+    /**
+     * @param letter Short name of the parameter
+     * @return Bit of the parameter or -1 if there is no such parameter
+     */
+    public int findLetter(String letter) {
+        return letter.length() == 1 ? findLetter(letter.charAt(0)) : -1;
+    }
+
+    /**
+     * Finds parameter by its full name equal to the region of the string
+     * @param source String that contains the name
+     * @param from Start of the region, inclusive
+     * @param to End of the region, exclusive
+     * @return Bit of the parameter or -1 if there is no such parameter
+     */
+    public int findName(String source, int from, int to) {
+        for (int it = 0; it < names.length; ++it) {
+            if (names[it].length() == to - from && source.startsWith(names[it], from))
+                return it;
+        }
+        return -1;
+    }
+
+    /**
+     * @param bit Bit of the parameter
+     * @return Short name of the parameter
+     */
+    public String letter(int bit) {
+        return letters[bit];
+    }
+
+    /**
+     * Checks that there is at most one parameter from every conflict group
+     * @param flags Bits of the parameters
+     * @throws CommandArgumentException Throws an exception if incompatible parameters are met
+     */
+    public void checkConflicts(long flags) {
+        for (var it : conflicts) {
+            if (Long.bitCount(flags & it) > 1)
+                throw new CommandArgumentException("Incompatible parameters met");
+        }
+    }
+
+    /**
+     * @param flags Bits of the parameters
+     * @return Set of the parameters
+     */
+    public ParamSet toSet(long flags) {
+        return flags == 0 ? empty : new ParamSet(this, flags);
+    }
+}
@@ -0,0 +1,21 @@
+package com.armemius.lab5.commands.script;
+
+import com.armemius.lab5.commands.CompiledCommand;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Script file compiled into the list of commands
+ * @param path Absolute path of the script
+ * @param modified Modification time of the file when it was compiled
+ * @param size Size of the file when it was compiled
+ * @param commands Commands of the script in order, lines may hold several commands separated by <i>;</i>
+ */
+public record CompiledScript(
+        Path path,
+        FileTime modified,
+        long size,
+        List<CompiledCommand> commands
+) {}
@@ -0,0 +1,92 @@
+package com.armemius.lab5.commands.script;
+
+import com.armemius.lab5.commands.CommandLine;
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.CompiledCommand;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * <b>ScriptCache</b> keeps compiled scripts, script is compiled
+ * again only if its modification time or size has changed
+ *
+ * Compiled commands hold nodes of the parser that compiled them, so scripts
+ * are cached per parser (every session has its own one). Cache is bounded:
+ * least recently used scripts are dropped when there are more than
+ * {@value #MAX_SCRIPTS} of them or their sources take more than
+ * {@value #MAX_BYTES} bytes, so scripts of closed sessions don't stay forever
+ */
+public final class ScriptCache {
+    private static final int MAX_SCRIPTS = 64;
+    private static final long MAX_BYTES = 32L << 20;
+    private static final LinkedHashMap<Key, CompiledScript> scripts = new LinkedHashMap<>(16, 0.75f, true);
+    private static long bytes = 0;
+
+    private record Key(CommandParser parser, Path path) {}
+
+    private ScriptCache() {}
+
+    /**
+     * Returns compiled script, compiles it if it is not cached or file has changed
+     * @param path Path to the script
+     * @param parser Parser to compile the lines with
+     * @return Compiled script
+     * @throws IOException If file can't be read
+     */
+    public static CompiledScript get(Path path, CommandParser parser) throws IOException {
+        path = path.toAbsolutePath().normalize();
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        var key = new Key(parser, path);
+        synchronized (scripts) {
+            var cached = scripts.get(key);
+            if (cached != null
+                    && cached.modified().equals(attributes.lastModifiedTime())
+                    && cached.size() == attributes.size())
+                return cached;
+        }
+        var script = compile(path, attributes, parser);
+        synchronized (scripts) {
+            var old = scripts.put(key, script);
+            if (old != null)
+                bytes -= old.size();
+            bytes += script.size();
+            var eldest = scripts.entrySet().iterator();
+            while (scripts.size() > 1 && (scripts.size() > MAX_SCRIPTS || bytes > MAX_BYTES)) {
+                bytes -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Drops all the compiled scripts
+     */
+    public static void clear() {
+        synchronized (scripts) {
+            scripts.clear();
+            bytes = 0;
+        }
+    }
+
+    private static CompiledScript compile(Path path, BasicFileAttributes attributes, CommandParser parser) throws IOException {
+        var commands = new ArrayList<CompiledCommand>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (var it : CommandLine.split(line)) {
+                    commands.add(parser.compile(it));
+                }
+            }
+        }
+        commands.trimToSize();
+        return new CompiledScript(path, attributes.lastModifiedTime(), attributes.size(), commands);
+    }
+}
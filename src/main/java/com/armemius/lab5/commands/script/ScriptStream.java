@@ -0,0 +1,96 @@
+package com.armemius.lab5.commands.script;
+
+import com.armemius.lab5.commands.CommandLine;
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.CompiledCommand;
+import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.commands.params.ParamSet;
+import com.armemius.lab5.io.console.BufferedInputHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <b>ScriptStream</b> reads and compiles the script in a background
+ * thread ahead of execution, only a bounded number of compiled commands
+ * is kept in memory, so scripts of any size can be executed
+ *
+ * Commands are returned strictly in the order of lines,
+ * stream should be used from one thread
+ */
+public class ScriptStream implements AutoCloseable {
+    private static final int CAPACITY = 1024;
+    private static final CompiledCommand END = new CompiledCommand("", null, List.of(), ParamSet.EMPTY, null);
+
+    private final BlockingQueue<CompiledCommand> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread thread;
+    private volatile boolean closed = false;
+    private volatile String failure = null;
+
+    /**
+     * Opens the script and starts compiling it
+     * @param path Path to the script
+     * @param parser Parser to compile the lines with, its compilation should be thread-safe
+     * @throws IOException If file can't be opened
+     */
+    public ScriptStream(Path path, CommandParser parser) throws IOException {
+        InputStream input = Files.newInputStream(path);
+        thread = new Thread(() -> compile(input, parser), "script-parse-ahead");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for the next compiled command
+     * @return Next command or null if script has ended
+     * @throws CommandRuntimeException If script couldn't be read
+     */
+    public CompiledCommand next() {
+        CompiledCommand command;
+        try {
+            command = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandRuntimeException("Interrupted while reading the script");
+        }
+        if (command != END)
+            return command;
+        queue.add(END);
+        if (failure != null)
+            throw new CommandRuntimeException("Error while reading the script: " + failure);
+        return null;
+    }
+
+    /**
+     * Stops reading the script
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private void compile(InputStream input, CommandParser parser) {
+        try (input) {
+            var reader = new BufferedInputHandler(input, false);
+            while (!closed && reader.hasNextLine()) {
+                for (var it : CommandLine.split(reader.get())) {
+                    queue.put(parser.compile(it));
+                }
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (IOException | UncheckedIOException e) {
+            failure = e.getMessage();
+        }
+        try {
+            queue.put(END);
+        } catch (InterruptedException ignored) {}
+    }
+}
@@ -1,19 +1,58 @@
 package com.armemius.lab5.io;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
 /**
- * BufferOutputHandler uses StringBuffer for
- * output, then you can get the output data
- * from the buffer
+ * BufferOutputHandler captures output as UTF-8 bytes
+ * in a chain of fixed-size chunks, then you can get the
+ * output data as a String or drain it into a channel
+ *
+ * Buffer may be limited in size, when the limit is reached
+ * it either drops the rest of the output or, in ring mode,
+ * drops the oldest bytes and keeps only the last ones.
+ * Freed chunks are kept and reused for the next output
+ *
+ * Handler is not thread-safe
  */
 public class BufferOutputHandler implements OutputHandler {
-    StringBuffer buffer;
+    private static final int CHUNK_SIZE = 1 << 13;
+    private static final int MAX_POOLED_CHUNKS = 16;
+
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> pool = new ArrayDeque<>();
+    private final Utf8Encoder encoder = new Utf8Encoder();
+    private final byte[] split = new byte[Utf8Encoder.MAX_CHAR_BYTES];
+    private final long limit;
+    private final boolean ring;
+    private byte[] last = null;
+    private int head = 0;
+    private int tail = CHUNK_SIZE;
+    private long size = 0;
+    private boolean truncated = false;
 
     /**
-     * <b>BufferOutputHandler</b> needs only one value for constructor:
-     * @param buffer Link to buffer, where you need to store output
+     * Creates unbounded buffer
      */
-    public BufferOutputHandler(StringBuffer buffer) {
-        this.buffer = buffer;
+    public BufferOutputHandler() {
+        this(Long.MAX_VALUE, false);
+    }
+
+    /**
+     * @param limit Maximal number of bytes kept in the buffer
+     * @param ring If true the oldest output is dropped when limit
+     *             is reached, otherwise the newest output is dropped
+     */
+    public BufferOutputHandler(long limit, boolean ring) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Buffer limit must be positive");
+        this.limit = limit;
+        this.ring = ring;
     }
 
     /**
@@ -22,7 +61,20 @@ public class BufferOutputHandler implements OutputHandler {
      */
     @Override
     public void put(String line) {
-        buffer.append(line).append("\n");
+        encode(line);
+        write('\n');
+        trim();
+    }
+
+    /**
+     * @see OutputHandler#put(CharSequence)
+     * @param line Characters to output
+     */
+    @Override
+    public void put(CharSequence line) {
+        encode(line);
+        write('\n');
+        trim();
     }
 
     /**
@@ -31,6 +83,191 @@ public class BufferOutputHandler implements OutputHandler {
      */
     @Override
     public void hold(String line) {
-        buffer.append(line);
+        encode(line);
+        trim();
+    }
+
+    /**
+     * Items are requested while the output fits into the limit, once
+     * the newest output is being dropped the flow is cancelled, so
+     * the publisher doesn't produce items that can't be stored
+     * @see OutputHandler#stream(Flow.Publisher, Consumer, Runnable)
+     */
+    @Override
+    public <T> void stream(Flow.Publisher<? extends T> publisher, Consumer<? super T> writer, Runnable end) {
+        var flow = new OutputFlow<T>(publisher, writer, end);
+        while (!flow.request(OutputFlow.BATCH)) {
+            if (!ring && truncated) {
+                flow.cancel();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Number of bytes currently stored in the buffer
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return True if some output was dropped because of the limit
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Writes all stored bytes into the channel and empties the buffer
+     * @param channel Channel to write output to
+     * @return Number of bytes written
+     * @throws IOException If channel fails, bytes that were not
+     *                     written stay in the buffer
+     */
+    public long drainTo(WritableByteChannel channel) throws IOException {
+        long written = 0;
+        while (!chunks.isEmpty()) {
+            byte[] chunk = chunks.peekFirst();
+            int end = chunk == last ? tail : CHUNK_SIZE;
+            ByteBuffer view = ByteBuffer.wrap(chunk, head, end - head);
+            try {
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            } finally {
+                int count = view.position() - head;
+                written += count;
+                size -= count;
+                head = view.position();
+            }
+            releaseFirst();
+        }
+        return written;
+    }
+
+    /**
+     * Drops all stored output, chunks are kept for reuse
+     */
+    public void clear() {
+        while (!chunks.isEmpty()) {
+            releaseFirst();
+        }
+        truncated = false;
+    }
+
+    /**
+     * @return Stored output decoded from UTF-8
+     */
+    @Override
+    public String toString() {
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalStateException("Buffer is too large to be converted into a String");
+        byte[] data = new byte[(int) size];
+        int position = 0;
+        int offset = head;
+        for (byte[] chunk : chunks) {
+            int end = chunk == last ? tail : CHUNK_SIZE;
+            System.arraycopy(chunk, offset, data, position, end - offset);
+            position += end - offset;
+            offset = 0;
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes characters as UTF-8, in bounded mode whole
+     * characters that don't fit are dropped
+     */
+    private void encode(CharSequence line) {
+        encoder.reset(line);
+        while (encoder.hasRemaining()) {
+            if (!ring && (truncated || limit - size < encoder.nextLength())) {
+                truncated = true;
+                return;
+            }
+            if (tail == CHUNK_SIZE)
+                nextChunk();
+            int start = tail;
+            int end = ring ? CHUNK_SIZE : (int) Math.min(CHUNK_SIZE, tail + limit - size);
+            tail = encoder.encode(last, start, end);
+            size += tail - start;
+            if (tail == start) {
+                // character is split between two chunks
+                int count = encoder.encode(split, 0, encoder.nextLength());
+                for (int it = 0; it < count; ++it) {
+                    write(split[it]);
+                }
+            }
+        }
+    }
+
+    private void write(int b) {
+        if (!ring && (truncated || size >= limit)) {
+            truncated = true;
+            return;
+        }
+        if (tail == CHUNK_SIZE)
+            nextChunk();
+        last[tail++] = (byte) b;
+        ++size;
+    }
+
+    private void nextChunk() {
+        if (ring && size >= limit)
+            trim();
+        last = pool.isEmpty() ? new byte[CHUNK_SIZE] : pool.pollFirst();
+        chunks.addLast(last);
+        tail = 0;
+    }
+
+    /**
+     * In ring mode drops the oldest bytes over the limit,
+     * buffer always starts at the beginning of a character
+     */
+    private void trim() {
+        if (!ring || size <= limit)
+            return;
+        truncated = true;
+        long excess = size - limit;
+        while (excess > 0 || isContinuation()) {
+            byte[] chunk = chunks.peekFirst();
+            int end = chunk == last ? tail : CHUNK_SIZE;
+            int available = end - head;
+            if (excess >= available) {
+                excess -= available;
+                size -= available;
+                head = end;
+                releaseFirst();
+                continue;
+            }
+            int skip = excess > 0 ? (int) excess : 1;
+            head += skip;
+            size -= skip;
+            excess -= skip;
+        }
+    }
+
+    private boolean isContinuation() {
+        if (chunks.isEmpty())
+            return false;
+        byte[] chunk = chunks.peekFirst();
+        int end = chunk == last ? tail : CHUNK_SIZE;
+        return head < end && (chunk[head] & 0xC0) == 0x80;
+    }
+
+    /**
+     * Removes the first chunk and returns it to the pool
+     */
+    private void releaseFirst() {
+        byte[] chunk = chunks.pollFirst();
+        head = 0;
+        if (chunk == last) {
+            last = null;
+            tail = CHUNK_SIZE;
+            size = 0;
+        }
+        if (pool.size() < MAX_POOLED_CHUNKS)
+            pool.addFirst(chunk);
     }
 }
@@ -0,0 +1,56 @@
+package com.armemius.lab5.io;
+
+/**
+ * FlushingInputHandler writes out buffered output only when
+ * reading would wait for the user, so prompts are visible when they
+ * are needed, while pipelined input is answered with batched writes
+ */
+public class FlushingInputHandler implements InputHandler {
+    private final InputHandler input;
+    private final OutputHandler output;
+
+    /**
+     * @param input Handler to read lines from
+     * @param output Handler to flush before waiting for input
+     */
+    public FlushingInputHandler(InputHandler input, OutputHandler output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * @see InputHandler#get()
+     */
+    @Override
+    public String get() {
+        if (!input.isReady())
+            output.flush();
+        return input.get();
+    }
+
+    /**
+     * @see InputHandler#hasNextLine()
+     */
+    @Override
+    public boolean hasNextLine() {
+        if (!input.isReady())
+            output.flush();
+        return input.hasNextLine();
+    }
+
+    /**
+     * @see InputHandler#isReady()
+     */
+    @Override
+    public boolean isReady() {
+        return input.isReady();
+    }
+
+    /**
+     * @see InputHandler#close()
+     */
+    @Override
+    public void close() {
+        input.close();
+    }
+}
@@ -18,6 +18,15 @@ public interface InputHandler {
      */
     boolean hasNextLine();
 
+    /**
+     * <b>isReady</b> function tells if the next line
+     * is already received and can be read without waiting,
+     * handlers that can't tell return false
+     */
+    default boolean isReady() {
+        return false;
+    }
+
     /**
      * <b>close</b> function is used to close
      * InputHandler if needed (usually for networking
@@ -0,0 +1,78 @@
+package com.armemius.lab5.io;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * NoPromptOutputHandler passes lines to another handler
+ * and drops everything that is output without a line break,
+ * i.e. prompts, so the output contains only results of commands
+ */
+public class NoPromptOutputHandler implements OutputHandler {
+    private final OutputHandler handler;
+
+    /**
+     * @param handler Handler that receives the lines
+     */
+    public NoPromptOutputHandler(OutputHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @see OutputHandler#put(String)
+     * @param line String to output
+     */
+    @Override
+    public void put(String line) {
+        handler.put(line);
+    }
+
+    /**
+     * @see OutputHandler#put(CharSequence)
+     * @param line Characters to output
+     */
+    @Override
+    public void put(CharSequence line) {
+        handler.put(line);
+    }
+
+    /**
+     * Prompts are not output
+     * @see OutputHandler#hold(String)
+     * @param line String to drop
+     */
+    @Override
+    public void hold(String line) {}
+
+    /**
+     * @see OutputHandler#flush()
+     */
+    @Override
+    public void flush() {
+        handler.flush();
+    }
+
+    /**
+     * @see OutputHandler#stream(Flow.Publisher, Consumer, Runnable)
+     */
+    @Override
+    public <T> void stream(Flow.Publisher<? extends T> publisher, Consumer<? super T> writer, Runnable end) {
+        handler.stream(publisher, writer, end);
+    }
+
+    /**
+     * @see OutputHandler#isStreaming()
+     */
+    @Override
+    public boolean isStreaming() {
+        return handler.isStreaming();
+    }
+
+    /**
+     * @see OutputHandler#resume(boolean)
+     */
+    @Override
+    public void resume(boolean wait) {
+        handler.resume(wait);
+    }
+}
@@ -0,0 +1,109 @@
+package com.armemius.lab5.io;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * <b>OutputFlow</b> subscribes to a publisher and passes received items
+ * to the writer, items are requested only by {@link #request(long)},
+ * so the output handler decides how much is produced and when
+ *
+ * Flow is meant for publishers that emit inside of the request call, like
+ * the ones of {@link com.armemius.lab5.collection.CollectionManager}, then
+ * errors of the publisher and of the writer are thrown from the request
+ *
+ * Flow is not thread-safe
+ * @param <T> Type of the items
+ */
+public class OutputFlow<T> implements Flow.Subscriber<T> {
+    /**
+     * Number of items output handlers request at once
+     */
+    public static final int BATCH = 64;
+
+    private final Consumer<? super T> writer;
+    private final Runnable end;
+    private Flow.Subscription subscription;
+    private Throwable error = null;
+    private boolean done = false;
+
+    /**
+     * Subscribes to the publisher, nothing is requested yet
+     * @param publisher Source of the items
+     * @param writer Action for every item
+     * @param end Action after the last item
+     */
+    public OutputFlow(Flow.Publisher<? extends T> publisher, Consumer<? super T> writer, Runnable end) {
+        this.writer = writer;
+        this.end = end;
+        publisher.subscribe(this);
+    }
+
+    /**
+     * Requests next items and waits for the publisher to emit them
+     * @param count Number of items to request
+     * @return True if the output is complete
+     */
+    public boolean request(long count) {
+        if (!done)
+            subscription.request(count);
+        if (error != null) {
+            var ex = error;
+            error = null;
+            if (ex instanceof RuntimeException runtime)
+                throw runtime;
+            if (ex instanceof Error fatal)
+                throw fatal;
+            throw new IllegalStateException(ex);
+        }
+        return done;
+    }
+
+    /**
+     * Stops the output, end action is not run
+     */
+    public void cancel() {
+        if (done)
+            return;
+        done = true;
+        subscription.cancel();
+    }
+
+    /**
+     * @return True if the output is complete or cancelled
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+        if (done)
+            return;
+        try {
+            writer.accept(item);
+        } catch (RuntimeException ex) {
+            error = ex;
+            cancel();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        done = true;
+        error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+        if (done)
+            return;
+        done = true;
+        end.run();
+    }
+}
@@ -1,5 +1,8 @@
 package com.armemius.lab5.io;
 
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
 /**
  * Class that handles output of
  * the program in different ways
@@ -12,10 +15,53 @@ public interface OutputHandler {
      */
     void put(String line);
 
+    /**
+     * <b>put</b> function outputs characters
+     * with a line break, handlers that can write characters
+     * directly should override it to avoid creating a String
+     * @param line Characters to output, may be reused by caller after the call
+     */
+    default void put(CharSequence line) {
+        put(line.toString());
+    }
+
     /**
      * <b>hold</b> function outputs String
      * without a line break
      * @param line String to output
      */
     void hold(String line);
+
+    /**
+     * <b>flush</b> function is called when a command ends,
+     * handlers that buffer output should write it out
+     */
+    default void flush() {}
+
+    /**
+     * <b>stream</b> function outputs items of the publisher, items are requested
+     * by {@value OutputFlow#BATCH} at a time. By default all of them are output
+     * before the call returns, handlers that can wait for the receiver
+     * may keep the flow and continue it with {@link #resume(boolean)}
+     * @param publisher Source of the items
+     * @param writer Action that outputs one item
+     * @param end Action after the last item
+     */
+    default <T> void stream(Flow.Publisher<? extends T> publisher, Consumer<? super T> writer, Runnable end) {
+        var flow = new OutputFlow<T>(publisher, writer, end);
+        while (!flow.request(OutputFlow.BATCH)) {}
+    }
+
+    /**
+     * @return True if the handler keeps a flow that is not complete yet
+     */
+    default boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * <b>resume</b> function continues the flow kept by the handler
+     * @param wait True if the flow must be completed before the call returns
+     */
+    default void resume(boolean wait) {}
 }
@@ -0,0 +1,90 @@
+package com.armemius.lab5.io;
+
+import com.armemius.lab5.commands.metrics.CommandTrace;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * TracingOutputHandler passes output to another handler and
+ * accounts its time and size to the trace of the running command
+ * @see CommandTrace
+ */
+public class TracingOutputHandler implements OutputHandler {
+    private final OutputHandler handler;
+
+    /**
+     * @param handler Handler that receives the output
+     */
+    public TracingOutputHandler(OutputHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @see OutputHandler#put(String)
+     * @param line String to output
+     */
+    @Override
+    public void put(String line) {
+        long start = CommandTrace.now();
+        handler.put(line);
+        CommandTrace.output(start, line.length() + 1);
+    }
+
+    /**
+     * @see OutputHandler#put(CharSequence)
+     * @param line Characters to output
+     */
+    @Override
+    public void put(CharSequence line) {
+        long start = CommandTrace.now();
+        int length = line.length();
+        handler.put(line);
+        CommandTrace.output(start, length + 1);
+    }
+
+    /**
+     * @see OutputHandler#hold(String)
+     * @param line String to output
+     */
+    @Override
+    public void hold(String line) {
+        long start = CommandTrace.now();
+        handler.hold(line);
+        CommandTrace.output(start, line.length());
+    }
+
+    /**
+     * @see OutputHandler#flush()
+     */
+    @Override
+    public void flush() {
+        long start = CommandTrace.now();
+        handler.flush();
+        CommandTrace.output(start, 0);
+    }
+
+    /**
+     * @see OutputHandler#stream(Flow.Publisher, Consumer, Runnable)
+     */
+    @Override
+    public <T> void stream(Flow.Publisher<? extends T> publisher, Consumer<? super T> writer, Runnable end) {
+        handler.stream(publisher, writer, end);
+    }
+
+    /**
+     * @see OutputHandler#isStreaming()
+     */
+    @Override
+    public boolean isStreaming() {
+        return handler.isStreaming();
+    }
+
+    /**
+     * @see OutputHandler#resume(boolean)
+     */
+    @Override
+    public void resume(boolean wait) {
+        handler.resume(wait);
+    }
+}
@@ -0,0 +1,92 @@
+package com.armemius.lab5.io;
+
+/**
+ * <b>Utf8Encoder</b> encodes characters as UTF-8 straight into byte
+ * arrays, so output handlers don't create intermediate strings or arrays
+ *
+ * Line is encoded in parts: every call fills the given range of
+ * the array with whole characters and remembers where it stopped,
+ * so the caller can flush or switch to another chunk and continue.
+ * Unpaired surrogates are encoded as <i>?</i>
+ *
+ * Encoder is not thread-safe
+ */
+public final class Utf8Encoder {
+    /**
+     * Largest number of bytes one character takes
+     */
+    public static final int MAX_CHAR_BYTES = 4;
+
+    private CharSequence line = "";
+    private int next = 0;
+
+    /**
+     * Starts encoding of the line
+     * @param line Characters to encode
+     */
+    public void reset(CharSequence line) {
+        this.line = line;
+        this.next = 0;
+    }
+
+    /**
+     * @return True if some characters of the line are not encoded yet
+     */
+    public boolean hasRemaining() {
+        return next < line.length();
+    }
+
+    /**
+     * @return Number of bytes the next character takes
+     */
+    public int nextLength() {
+        char c = line.charAt(next);
+        if (c < 0x80)
+            return 1;
+        if (c < 0x800)
+            return 2;
+        if (isPair(next))
+            return 4;
+        return Character.isSurrogate(c) ? 1 : 3;
+    }
+
+    /**
+     * Encodes the next characters into the array while they fit
+     * @param target Array to write to
+     * @param position Index of the first byte to write
+     * @param limit Index after the last byte that may be written
+     * @return Index after the last written byte
+     */
+    public int encode(byte[] target, int position, int limit) {
+        int length = line.length();
+        while (next < length) {
+            if (limit - position < MAX_CHAR_BYTES && limit - position < nextLength())
+                break;
+            char c = line.charAt(next++);
+            if (c < 0x80) {
+                target[position++] = (byte) c;
+            } else if (c < 0x800) {
+                target[position++] = (byte) (0xC0 | (c >> 6));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isPair(next - 1)) {
+                int codePoint = Character.toCodePoint(c, line.charAt(next++));
+                target[position++] = (byte) (0xF0 | (codePoint >> 18));
+                target[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                target[position++] = (byte) '?';
+            } else {
+                target[position++] = (byte) (0xE0 | (c >> 12));
+                target[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    private boolean isPair(int index) {
+        return Character.isHighSurrogate(line.charAt(index)) && index + 1 < line.length()
+                && Character.isLowSurrogate(line.charAt(index + 1));
+    }
+}
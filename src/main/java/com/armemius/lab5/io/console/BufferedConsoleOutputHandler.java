@@ -0,0 +1,105 @@
+package com.armemius.lab5.io.console;
+
+import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.Utf8Encoder;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * BufferedConsoleOutputHandler encodes output into large
+ * buffer and writes it to stdout channel only when buffer is
+ * full or when it is flushed, prompts are flushed before waiting
+ * for input by {@link com.armemius.lab5.io.FlushingInputHandler}
+ *
+ * Handler is not thread-safe, it should be used from
+ * the thread that runs commands
+ */
+public class BufferedConsoleOutputHandler implements OutputHandler {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final String separator = System.lineSeparator();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private final Utf8Encoder encoder = new Utf8Encoder();
+    private int position = 0;
+
+    public BufferedConsoleOutputHandler() {
+        this(new FileOutputStream(FileDescriptor.out).getChannel(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param channel Channel to write output to
+     * @param capacity Size of the buffer in bytes, at least 16
+     */
+    public BufferedConsoleOutputHandler(WritableByteChannel channel, int capacity) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(capacity, 16));
+        this.bytes = buffer.array();
+    }
+
+    /**
+     * @see OutputHandler#put(String)
+     * @param line String to output
+     */
+    @Override
+    public void put(String line) {
+        encode(line);
+        encode(separator);
+    }
+
+    /**
+     * @see OutputHandler#put(CharSequence)
+     * @param line Characters to output
+     */
+    @Override
+    public void put(CharSequence line) {
+        encode(line);
+        encode(separator);
+    }
+
+    /**
+     * @see OutputHandler#hold(String)
+     * @param line String to output
+     */
+    @Override
+    public void hold(String line) {
+        encode(line);
+    }
+
+    /**
+     * @see OutputHandler#flush()
+     */
+    @Override
+    public void flush() {
+        buffer.limit(position).position(0);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+            position = 0;
+        }
+    }
+
+    /**
+     * Encodes characters into the buffer as UTF-8 without intermediate arrays,
+     * buffer is flushed when the next character doesn't fit
+     */
+    private void encode(CharSequence line) {
+        encoder.reset(line);
+        position = encoder.encode(bytes, position, bytes.length);
+        while (encoder.hasRemaining()) {
+            flush();
+            position = encoder.encode(bytes, position, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.armemius.lab5.io.console;
+
+import com.armemius.lab5.io.InputHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BufferedInputHandler reads input into large byte buffers
+ * and cuts lines right in the buffer, lines are decoded from
+ * UTF-8 straight into Strings without Scanner and its regexes
+ *
+ * When input is not a terminal (pipe or file), a read-ahead
+ * thread fills the next buffers while commands are running.
+ * Handler itself is not thread-safe, it should be used from
+ * the thread that runs commands
+ */
+public class BufferedInputHandler implements InputHandler {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int READ_AHEAD_BUFFERS = 4;
+
+    private final InputStream input;
+    private final ReadAhead readAhead;
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    private byte[] carry = new byte[256];
+    private int carryLength = 0;
+    private String next = null;
+
+    /**
+     * Reads standard input, read-ahead is used
+     * if the program is not attached to a terminal
+     */
+    public BufferedInputHandler() {
+        this(System.in, System.console() == null);
+    }
+
+    /**
+     * @param input Stream to read lines from
+     * @param readAhead True to read the stream in a background thread
+     */
+    public BufferedInputHandler(InputStream input, boolean readAhead) {
+        this(input, readAhead, BUFFER_SIZE);
+    }
+
+    /**
+     * @param input Stream to read lines from
+     * @param readAhead True to read the stream in a background thread
+     * @param bufferSize Size of the buffers in bytes, small buffers
+     *                   suit many concurrent handlers
+     */
+    public BufferedInputHandler(InputStream input, boolean readAhead, int bufferSize) {
+        this.input = input;
+        bufferSize = Math.max(bufferSize, 16);
+        if (readAhead) {
+            this.readAhead = new ReadAhead(input, bufferSize);
+            this.buffer = null;
+        } else {
+            this.readAhead = null;
+            this.buffer = new byte[bufferSize];
+        }
+    }
+
+    /**
+     * @see InputHandler#get()
+     * @throws NoSuchElementException If there are no more lines
+     */
+    @Override
+    public String get() {
+        if (next == null)
+            next = readLine();
+        if (next == null)
+            throw new NoSuchElementException("No line found");
+        String line = next;
+        next = null;
+        return line;
+    }
+
+    /**
+     * @see InputHandler#hasNextLine()
+     */
+    @Override
+    public boolean hasNextLine() {
+        if (next == null)
+            next = readLine();
+        return next != null;
+    }
+
+    /**
+     * Checks if the next line is in the buffer already
+     * @see InputHandler#isReady()
+     */
+    @Override
+    public boolean isReady() {
+        if (next != null)
+            return true;
+        if (buffer == null)
+            return false;
+        for (int it = position; it < limit; ++it) {
+            if (buffer[it] == '\n')
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * <b>close</b> method is used to
+     * close the stream
+     * @see InputHandler#close()
+     */
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads next line without line terminator
+     * @return Line or null if input has ended
+     */
+    private String readLine() {
+        while (true) {
+            if (position == limit && !fill()) {
+                if (carryLength == 0)
+                    return null;
+                return takeCarry(0);
+            }
+            int start = position;
+            int end = limit;
+            byte[] bytes = buffer;
+            boolean ascii = true;
+            int it = start;
+            while (it < end) {
+                byte b = bytes[it];
+                if (b == '\n')
+                    break;
+                if (b < 0)
+                    ascii = false;
+                ++it;
+            }
+            if (it == end) {
+                appendCarry(bytes, start, end - start);
+                position = end;
+                continue;
+            }
+            position = it + 1;
+            if (carryLength != 0) {
+                appendCarry(bytes, start, it - start);
+                return takeCarry(1);
+            }
+            int length = it - start;
+            if (length > 0 && bytes[it - 1] == '\r')
+                --length;
+            return ascii
+                    ? new String(bytes, start, length, StandardCharsets.ISO_8859_1)
+                    : new String(bytes, start, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private void appendCarry(byte[] bytes, int from, int length) {
+        if (carryLength + length > carry.length)
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+        System.arraycopy(bytes, from, carry, carryLength, length);
+        carryLength += length;
+    }
+
+    /**
+     * Decodes line collected from several buffers
+     * @param terminated 1 if line was ended by line break, 0 if input has ended
+     */
+    private String takeCarry(int terminated) {
+        int length = carryLength;
+        if (terminated != 0 && length > 0 && carry[length - 1] == '\r')
+            --length;
+        carryLength = 0;
+        return new String(carry, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replaces consumed buffer with the next portion of input
+     * @return False if input has ended
+     */
+    private boolean fill() {
+        if (eof)
+            return false;
+        if (readAhead != null) {
+            Chunk chunk = readAhead.next(buffer);
+            buffer = chunk.data();
+            position = 0;
+            limit = Math.max(chunk.length(), 0);
+            eof = chunk.length() < 0;
+            return !eof || limit > 0;
+        }
+        try {
+            int count;
+            do {
+                count = input.read(buffer, 0, buffer.length);
+            } while (count == 0);
+            position = 0;
+            limit = Math.max(count, 0);
+            eof = count < 0;
+            return !eof;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Chunk(byte[] data, int length, IOException error) {}
+
+    /**
+     * Background reader that keeps several filled buffers ready,
+     * consumed buffers are returned to it and filled again
+     */
+    private static class ReadAhead implements Runnable {
+        private final InputStream input;
+        private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(READ_AHEAD_BUFFERS);
+        private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(READ_AHEAD_BUFFERS);
+        private Chunk end = null;
+
+        private ReadAhead(InputStream input, int bufferSize) {
+            this.input = input;
+            for (int it = 0; it < READ_AHEAD_BUFFERS; ++it) {
+                free.add(new byte[bufferSize]);
+            }
+            Thread thread = new Thread(this, "input-read-ahead");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    byte[] data = free.take();
+                    int count;
+                    try {
+                        do {
+                            count = input.read(data, 0, data.length);
+                        } while (count == 0);
+                    } catch (IOException e) {
+                        filled.put(new Chunk(data, -1, e));
+                        return;
+                    }
+                    filled.put(new Chunk(data, count, null));
+                    if (count < 0)
+                        return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @param consumed Buffer that was read by the handler, may be null
+         * @return Next filled buffer, length is negative when input has ended
+         */
+        private Chunk next(byte[] consumed) {
+            if (end != null)
+                return end;
+            if (consumed != null)
+                free.add(consumed);
+            try {
+                Chunk chunk = filled.take();
+                if (chunk.length() < 0)
+                    end = chunk;
+                if (chunk.error() != null)
+                    throw new UncheckedIOException(chunk.error());
+                return chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException("Interrupted while reading input"));
+            }
+        }
+    }
+}
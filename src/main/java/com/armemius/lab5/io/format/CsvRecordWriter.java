@@ -0,0 +1,76 @@
+package com.armemius.lab5.io.format;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.io.OutputHandler;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes groups as CSV (RFC 4180), header contains field paths
+ * as they are used in queries, e.g. groupAdmin.location.x
+ */
+public class CsvRecordWriter extends RecordWriter {
+    private static final String HEADER = "id,name,coordinates.x,coordinates.y,creationDate,"
+            + "studentsCount,expelledStudents,averageMark,semesterEnum,"
+            + "groupAdmin.name,groupAdmin.height,groupAdmin.eyeColor,groupAdmin.hairColor,"
+            + "groupAdmin.nationality,groupAdmin.location.x,groupAdmin.location.y,groupAdmin.location.z";
+
+    public CsvRecordWriter(OutputHandler output) {
+        super(output);
+    }
+
+    @Override
+    public void begin() {
+        output.put(HEADER);
+    }
+
+    @Override
+    public void write(StudyGroup group) {
+        var coordinates = group.getCoordinates();
+        var admin = group.getGroupAdmin();
+        var location = admin.getLocation();
+        line.append(group.getId().intValue()).append(',');
+        string(group.getName());
+        line.append(',').append(coordinates.getX());
+        line.append(',').append(coordinates.getY().longValue()).append(',');
+        DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo(group.getCreationDate(), line);
+        line.append(',').append(group.getStudentsCount());
+        line.append(',').append(group.getExpelledStudents());
+        line.append(',').append(group.getAverageMark()).append(',');
+        if (group.getSemesterEnum() != null)
+            line.append(group.getSemesterEnum().name());
+        line.append(',');
+        string(admin.getName());
+        line.append(',').append(admin.getHeight());
+        line.append(',').append(admin.getEyeColor().name());
+        line.append(',').append(admin.getHairColor().name());
+        line.append(',').append(admin.getNationality().name());
+        line.append(',').append(location.getX());
+        line.append(',').append(location.getY().doubleValue());
+        line.append(',').append(location.getZ().longValue());
+        flushLine();
+    }
+
+    /**
+     * Appends value, quotes it only if it contains separators, quotes or line breaks
+     */
+    private void string(String value) {
+        boolean quote = false;
+        for (int it = 0; it < value.length() && !quote; ++it) {
+            char c = value.charAt(it);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int it = 0; it < value.length(); ++it) {
+            char c = value.charAt(it);
+            if (c == '"')
+                line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
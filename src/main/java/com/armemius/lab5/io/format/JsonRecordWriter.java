@@ -0,0 +1,90 @@
+package com.armemius.lab5.io.format;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.io.OutputHandler;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes every group as one JSON object per line (JSON Lines),
+ * field names are the same as in the collection file
+ */
+public class JsonRecordWriter extends RecordWriter {
+    public JsonRecordWriter(OutputHandler output) {
+        super(output);
+    }
+
+    @Override
+    public void write(StudyGroup group) {
+        var coordinates = group.getCoordinates();
+        var admin = group.getGroupAdmin();
+        var location = admin.getLocation();
+        line.append("{\"id\":").append(group.getId().intValue());
+        line.append(",\"name\":");
+        string(group.getName());
+        line.append(",\"coordinates\":{\"x\":").append(coordinates.getX());
+        line.append(",\"y\":").append(coordinates.getY().longValue());
+        line.append("},\"creationDate\":\"");
+        DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo(group.getCreationDate(), line);
+        line.append("\",\"studentsCount\":").append(group.getStudentsCount());
+        line.append(",\"expelledStudents\":").append(group.getExpelledStudents());
+        line.append(",\"averageMark\":");
+        number(group.getAverageMark());
+        line.append(",\"semesterEnum\":");
+        if (group.getSemesterEnum() == null)
+            line.append("null");
+        else
+            line.append('"').append(group.getSemesterEnum().name()).append('"');
+        line.append(",\"groupAdmin\":{\"name\":");
+        string(admin.getName());
+        line.append(",\"height\":");
+        number(admin.getHeight());
+        line.append(",\"eyeColor\":\"").append(admin.getEyeColor().name());
+        line.append("\",\"hairColor\":\"").append(admin.getHairColor().name());
+        line.append("\",\"nationality\":\"").append(admin.getNationality().name());
+        line.append("\",\"location\":{\"x\":").append(location.getX());
+        line.append(",\"y\":");
+        number(location.getY());
+        line.append(",\"z\":").append(location.getZ().longValue());
+        line.append("}}}");
+        flushLine();
+    }
+
+    private void number(double value) {
+        if (Double.isFinite(value))
+            line.append(value);
+        else
+            line.append("null");
+    }
+
+    private void number(float value) {
+        if (Float.isFinite(value))
+            line.append(value);
+        else
+            line.append("null");
+    }
+
+    private void string(String value) {
+        line.append('"');
+        for (int it = 0; it < value.length(); ++it) {
+            char c = value.charAt(it);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append("\\u00");
+                        line.append(Character.forDigit(c >> 4, 16));
+                        line.append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
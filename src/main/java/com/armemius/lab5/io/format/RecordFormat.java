@@ -0,0 +1,70 @@
+package com.armemius.lab5.io.format;
+
+import com.armemius.lab5.commands.params.ParamSet;
+import com.armemius.lab5.io.OutputHandler;
+
+/**
+ * Formats in which commands can output groups
+ */
+public enum RecordFormat {
+    TEXT(false) {
+        @Override
+        public RecordWriter writer(OutputHandler output) {
+            return new TextRecordWriter(output);
+        }
+    },
+    JSON(true) {
+        @Override
+        public RecordWriter writer(OutputHandler output) {
+            return new JsonRecordWriter(output);
+        }
+    },
+    CSV(true) {
+        @Override
+        public RecordWriter writer(OutputHandler output) {
+            return new CsvRecordWriter(output);
+        }
+    },
+    TABLE(false) {
+        @Override
+        public RecordWriter writer(OutputHandler output) {
+            return new TableRecordWriter(output);
+        }
+    };
+
+    private final boolean machineReadable;
+
+    RecordFormat(boolean machineReadable) {
+        this.machineReadable = machineReadable;
+    }
+
+    /**
+     * @return True if output must contain only records, so commands
+     * should not add titles and messages to it
+     */
+    public boolean isMachineReadable() {
+        return machineReadable;
+    }
+
+    /**
+     * @param output Handler to write records to
+     * @return New writer of the format
+     */
+    public abstract RecordWriter writer(OutputHandler output);
+
+    /**
+     * Selects format by parameters of the command:
+     * -j / --json, -v / --csv, -t / --table, text by default
+     * @param params Parameters of the command
+     * @return Selected format
+     */
+    public static RecordFormat of(ParamSet params) {
+        if (params.contains("j"))
+            return JSON;
+        if (params.contains("v"))
+            return CSV;
+        if (params.contains("t"))
+            return TABLE;
+        return TEXT;
+    }
+}
@@ -0,0 +1,44 @@
+package com.armemius.lab5.io.format;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.io.OutputHandler;
+
+/**
+ * <b>RecordWriter</b> writes groups to the output one line per group
+ *
+ * Lines are built in one reusable StringBuilder and passed to
+ * {@link OutputHandler#put(CharSequence)}, so writers don't
+ * create intermediate strings for every record
+ */
+public abstract class RecordWriter {
+    protected final OutputHandler output;
+    protected final StringBuilder line = new StringBuilder(256);
+
+    protected RecordWriter(OutputHandler output) {
+        this.output = output;
+    }
+
+    /**
+     * Writes header of the output if format has one
+     */
+    public void begin() {}
+
+    /**
+     * Writes one group
+     * @param group Group to write
+     */
+    public abstract void write(StudyGroup group);
+
+    /**
+     * Writes footer of the output if format has one
+     */
+    public void end() {}
+
+    /**
+     * Outputs built line and clears the builder
+     */
+    protected void flushLine() {
+        output.put(line);
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,110 @@
+package com.armemius.lab5.io.format;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.io.OutputHandler;
+
+/**
+ * Writes groups as a table with fixed-width columns,
+ * values that don't fit the column are cut
+ */
+public class TableRecordWriter extends RecordWriter {
+    private static final String[] TITLES = {
+            "Id", "Name", "X", "Y", "Created", "Students", "Expelled", "Avg mark", "Semester", "Admin", "Nationality"
+    };
+    private static final int[] WIDTHS = {6, 16, 8, 8, 19, 8, 8, 18, 8, 16, 14};
+    private static final String SEPARATOR = " | ";
+    private static final String HEADER;
+    private static final String RULE;
+
+    static {
+        var header = new StringBuilder();
+        var rule = new StringBuilder();
+        for (int it = 0; it < TITLES.length; ++it) {
+            if (it > 0) {
+                header.append(SEPARATOR);
+                rule.append("-+-");
+            }
+            header.append(TITLES[it]);
+            header.append(" ".repeat(WIDTHS[it] - TITLES[it].length()));
+            rule.append("-".repeat(WIDTHS[it]));
+        }
+        HEADER = header.toString().stripTrailing();
+        RULE = rule.toString();
+    }
+
+    private int column = 0;
+    private int start = 0;
+
+    public TableRecordWriter(OutputHandler output) {
+        super(output);
+    }
+
+    @Override
+    public void begin() {
+        output.put(HEADER);
+        output.put(RULE);
+    }
+
+    @Override
+    public void write(StudyGroup group) {
+        var admin = group.getGroupAdmin();
+        column = 0;
+        next();
+        line.append(group.getId().intValue());
+        next();
+        line.append(group.getName());
+        next();
+        line.append(group.getCoordinates().getX());
+        next();
+        line.append(group.getCoordinates().getY().longValue());
+        next();
+        StudyGroup.DATE_FORMAT.formatTo(group.getCreationDate(), line);
+        next();
+        line.append(group.getStudentsCount());
+        next();
+        line.append(group.getExpelledStudents());
+        next();
+        line.append(group.getAverageMark());
+        next();
+        line.append(group.getSemesterEnum() == null ? "-" : group.getSemesterEnum().name());
+        next();
+        line.append(admin.getName());
+        next();
+        line.append(admin.getNationality().name());
+        next();
+        flushLine();
+    }
+
+    /**
+     * Pads or cuts the value of the current column and starts the next one
+     */
+    private void next() {
+        if (column > 0) {
+            int width = WIDTHS[column - 1];
+            int length = line.length() - start;
+            if (length > width) {
+                line.setLength(start + width - 1);
+                line.append('~');
+            } else {
+                for (int it = length; it < width; ++it) {
+                    line.append(' ');
+                }
+            }
+            if (column == WIDTHS.length) {
+                trimEnd();
+                return;
+            }
+            line.append(SEPARATOR);
+        }
+        start = line.length();
+        ++column;
+    }
+
+    private void trimEnd() {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ') {
+            --end;
+        }
+        line.setLength(end);
+    }
+}
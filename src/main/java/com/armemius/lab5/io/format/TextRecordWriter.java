@@ -0,0 +1,18 @@
+package com.armemius.lab5.io.format;
+
+import com.armemius.lab5.collection.data.StudyGroup;
+import com.armemius.lab5.io.OutputHandler;
+
+/**
+ * Writes groups as {@link StudyGroup#toString()}
+ */
+public class TextRecordWriter extends RecordWriter {
+    public TextRecordWriter(OutputHandler output) {
+        super(output);
+    }
+
+    @Override
+    public void write(StudyGroup group) {
+        output.put(group.toString());
+    }
+}
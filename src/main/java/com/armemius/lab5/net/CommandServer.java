@@ -0,0 +1,175 @@
+package com.armemius.lab5.net;
+
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.OutputHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * <b>CommandServer</b> lets many clients share one collection over TCP,
+ * the protocol is the same as in console: client sends lines with commands
+ * and receives their output followed by the <i>$ </i> prompt
+ *
+ * All the sockets are served by one non-blocking {@link Selector} loop,
+ * so idle connections cost only their buffers. Commands of all the
+ * connections are run by a single command thread, so
+ * {@link com.armemius.lab5.collection.CollectionManager} is never
+ * accessed concurrently. That thread never waits for one client:
+ * prompts are answered only from lines that were already received
+ * and slow readers stop getting their commands run until they catch up
+ */
+public class CommandServer implements Server {
+    /**
+     * Port that is used if no port is specified
+     */
+    public static final int DEFAULT_PORT = 5050;
+    private static final int READ_BUFFER = 1 << 16;
+
+    private final InetSocketAddress address;
+    private final BiFunction<InputHandler, OutputHandler, CommandParser> parsers;
+    private final Queue<Session> updates = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(it -> {
+        Thread thread = new Thread(it, "command-executor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running = false;
+
+    /**
+     * @param address Address to listen on
+     * @param parsers Creates parser for each connection from its input and output handlers
+     */
+    public CommandServer(InetSocketAddress address, BiFunction<InputHandler, OutputHandler, CommandParser> parsers) {
+        this.address = address;
+        this.parsers = parsers;
+    }
+
+    /**
+     * @see Server#bind()
+     */
+    @Override
+    public int bind() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Runs the event loop until server is closed
+     * @see Server#run()
+     */
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+        try {
+            while (running) {
+                selector.select();
+                Session session;
+                while ((session = updates.poll()) != null) {
+                    session.updateInterest();
+                }
+                var keys = selector.selectedKeys();
+                for (var key : keys) {
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (IOException e) {
+                            System.err.println("Unable to accept connection: " + e.getMessage());
+                        }
+                        continue;
+                    }
+                    session = (Session) key.attachment();
+                    try {
+                        if (key.isReadable())
+                            session.read(buffer);
+                        if (key.isValid() && key.isWritable())
+                            session.write();
+                    } catch (IOException e) {
+                        session.close();
+                    }
+                }
+                keys.clear();
+            }
+        } catch (IOException e) {
+            System.err.println("Server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stops the event loop and closes all the connections
+     * @see Server#close()
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (selector != null)
+            selector.wakeup();
+    }
+
+    CommandParser createParser(InputHandler inputHandler, OutputHandler outputHandler) {
+        return parsers.apply(inputHandler, outputHandler);
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Asks event loop to recalculate events of the session
+     */
+    void update(Session session) {
+        updates.add(session);
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                channel.close();
+                continue;
+            }
+            Session session = new Session(this, channel);
+            session.register(channel.register(selector, SelectionKey.OP_READ, session));
+            executor.execute(session::greet);
+        }
+    }
+
+    private void closeAll() {
+        executor.shutdownNow();
+        for (var key : selector.keys()) {
+            if (key.attachment() instanceof Session session)
+                session.close();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException ignored) {}
+    }
+}
@@ -0,0 +1,117 @@
+package com.armemius.lab5.net;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <b>DatagramRequest</b> is a command sent to {@link DatagramServer}
+ * in one datagram, all numbers are big-endian:
+ * <ul>
+ *     <li>request id, 8 bytes, chosen by client and repeated on retries</li>
+ *     <li>command name, string</li>
+ *     <li>number of arguments, 1 byte, then the arguments as strings</li>
+ *     <li>letters of the parameters, string, e.g. <i>"gs"</i></li>
+ *     <li>index of the first chunk of the response to send, 4 bytes, optional</li>
+ *     <li>zero bytes of padding, optional</li>
+ * </ul>
+ * Strings are 2 bytes of length followed by UTF-8 bytes. Server answers
+ * with at most {@link DatagramResponse#AMPLIFICATION} times the size of the
+ * datagram, so requests are padded to get more chunks per round trip
+ * @param id Request id
+ * @param command Name of the command
+ * @param args Arguments of the command, may contain spaces
+ * @param params Letters of the parameters
+ * @param from Index of the first chunk of the response to send
+ */
+public record DatagramRequest(long id, String command, List<String> args, String params, int from) {
+    private static final int MAX_ARGS = 255;
+
+    public DatagramRequest {
+        args = List.copyOf(args);
+        if (args.size() > MAX_ARGS)
+            throw new IllegalArgumentException("Too many arguments");
+        if (from < 0)
+            throw new IllegalArgumentException("Negative chunk index");
+    }
+
+    public DatagramRequest(long id, String command, List<String> args, String params) {
+        this(id, command, args, params, 0);
+    }
+
+    /**
+     * Writes the request into the buffer
+     * @param buffer Buffer to write to
+     * @throws java.nio.BufferOverflowException If request doesn't fit
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putLong(id);
+        putString(buffer, command);
+        buffer.put((byte) args.size());
+        for (var it : args) {
+            putString(buffer, it);
+        }
+        putString(buffer, params);
+        buffer.putInt(from);
+    }
+
+    /**
+     * Writes the request into the buffer padded with zeros
+     * @param buffer Buffer to write to
+     * @param size Size of the datagram, at most {@link DatagramResponse#MAX_DATAGRAM}
+     * @throws java.nio.BufferOverflowException If request doesn't fit
+     */
+    public void encode(ByteBuffer buffer, int size) {
+        int start = buffer.position();
+        encode(buffer);
+        while (buffer.position() - start < size) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * Reads the request from the remaining bytes of the buffer
+     * @param buffer Buffer with the datagram
+     * @return Decoded request
+     * @throws IllegalArgumentException If datagram is malformed
+     */
+    public static DatagramRequest decode(ByteBuffer buffer) {
+        try {
+            long id = buffer.getLong();
+            String command = getString(buffer);
+            int count = Byte.toUnsignedInt(buffer.get());
+            List<String> args = count == 0 ? List.of() : new ArrayList<>(count);
+            for (int it = 0; it < count; ++it) {
+                args.add(getString(buffer));
+            }
+            String params = getString(buffer);
+            int from = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : 0;
+            while (buffer.hasRemaining()) {
+                if (buffer.get() != 0)
+                    throw new IllegalArgumentException("Unexpected bytes after the request");
+            }
+            return new DatagramRequest(id, command, args, params, from);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Request is truncated");
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF)
+            throw new IllegalArgumentException("String is too long");
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length > buffer.remaining())
+            throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.armemius.lab5.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <b>DatagramResponse</b> describes the chunks of the output that
+ * {@link DatagramServer} sends back, every chunk is one datagram with
+ * a header of {@link #HEADER_SIZE} bytes followed by UTF-8 output:
+ * <ul>
+ *     <li>request id, 8 bytes</li>
+ *     <li>index of the chunk, 4 bytes</li>
+ *     <li>number of chunks, 4 bytes</li>
+ *     <li>status, 1 byte, combination of the <i>STATUS_</i> flags</li>
+ * </ul>
+ * Server doesn't know if the client owns its source address, so one
+ * datagram is answered with at most {@link #AMPLIFICATION} times its size,
+ * chunks that don't fit are not sent. Client collects the chunks of the id
+ * and sends the request again with the same id and the index of the first
+ * missing chunk to get the rest, the command is not run again. Request too
+ * small for even one chunk gets only a header with {@link #STATUS_TOO_SMALL},
+ * request for the rest of a response that is not cached anymore gets
+ * {@link #STATUS_EXPIRED}, both have no output and are not a part of the response
+ */
+public final class DatagramResponse {
+    /**
+     * Largest datagram that fits Ethernet frame without fragmentation
+     */
+    public static final int MAX_DATAGRAM = 1472;
+    public static final int HEADER_SIZE = 17;
+    public static final int MAX_PAYLOAD = MAX_DATAGRAM - HEADER_SIZE;
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_FAILED = 1;
+    public static final byte STATUS_MALFORMED = 2;
+    public static final byte STATUS_TRUNCATED = 4;
+    public static final byte STATUS_EXPIRED = 8;
+    public static final byte STATUS_TOO_SMALL = 16;
+    /**
+     * Largest ratio of the response size to the size of the request datagram
+     */
+    public static final int AMPLIFICATION = 3;
+
+    private DatagramResponse() {}
+
+    /**
+     * Writes the header of the chunk at the start of the buffer
+     */
+    public static void putHeader(ByteBuffer chunk, long id, int index, int count, byte status) {
+        chunk.putLong(0, id);
+        chunk.putInt(8, index);
+        chunk.putInt(12, count);
+        chunk.put(16, status);
+    }
+
+    public static long id(ByteBuffer chunk) {
+        return chunk.getLong(0);
+    }
+
+    public static int index(ByteBuffer chunk) {
+        return chunk.getInt(8);
+    }
+
+    public static int count(ByteBuffer chunk) {
+        return chunk.getInt(12);
+    }
+
+    public static byte status(ByteBuffer chunk) {
+        return chunk.get(16);
+    }
+}
@@ -0,0 +1,309 @@
+package com.armemius.lab5.net;
+
+import com.armemius.lab5.ConsoleManager;
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.io.BufferOutputHandler;
+import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.OutputHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * <b>DatagramServer</b> runs commands sent as {@link DatagramRequest}
+ * over UDP, requests are resolved against the commands tree directly,
+ * without tokenizing text, and output is sent back in chunks described
+ * by {@link DatagramResponse}
+ *
+ * One non-blocking channel is served by one thread that also runs
+ * the commands, so requests are executed one by one. Responses are kept
+ * in a bounded cache by client address and request id, a retried request
+ * gets the cached response and the command is not run twice. Every
+ * datagram is answered with at most {@link DatagramResponse#AMPLIFICATION}
+ * times its size, clients fetch the rest of large outputs chunk by chunk,
+ * so spoofed requests can't turn the server into an amplifier
+ * (it also listens on loopback unless another host is given).
+ * There is no interactive input, confirmations are given automatically,
+ * transaction started by a request is rolled back when the request ends
+ */
+public class DatagramServer implements Server {
+    private static final long MAX_OUTPUT = 1 << 22;
+    private static final int CACHE_ENTRIES = 4096;
+    private static final long CACHE_BYTES = 1 << 26;
+
+    private final InetSocketAddress address;
+    private final BufferOutputHandler output = new BufferOutputHandler(MAX_OUTPUT, false);
+    private final ConsoleManager manager;
+    private final CommandParser parser;
+    private final LinkedHashMap<CacheKey, List<ByteBuffer>> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final ArrayDeque<Datagram> outgoing = new ArrayDeque<>();
+    private long cachedBytes = 0;
+    private DatagramChannel channel;
+    private Selector selector;
+    private SelectionKey key;
+    private volatile boolean running = false;
+
+    /**
+     * @param address Address to listen on
+     * @param parsers Creates parser of the server from its input and output handlers
+     */
+    public DatagramServer(InetSocketAddress address, BiFunction<InputHandler, OutputHandler, CommandParser> parsers) {
+        this.address = address;
+        var input = new NoInputHandler();
+        this.parser = parsers.apply(input, output);
+        this.manager = new ConsoleManager(input, output, parser, true);
+    }
+
+    /**
+     * @see Server#bind()
+     */
+    @Override
+    public int bind() throws IOException {
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.bind(address);
+        channel.configureBlocking(false);
+        key = channel.register(selector, SelectionKey.OP_READ);
+        running = true;
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Receives requests and sends responses until server is closed
+     * @see Server#run()
+     */
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        try {
+            while (running) {
+                selector.select();
+                selector.selectedKeys().clear();
+                if (!key.isValid())
+                    break;
+                if (key.isWritable())
+                    sendQueued();
+                if (!key.isReadable())
+                    continue;
+                SocketAddress client;
+                while (outgoing.isEmpty() && (client = channel.receive(buffer.clear())) != null) {
+                    handle(client, buffer.flip());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server stopped: " + e.getMessage());
+        } finally {
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * @see Server#close()
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (selector != null)
+            selector.wakeup();
+    }
+
+    private void handle(SocketAddress client, ByteBuffer datagram) throws IOException {
+        if (datagram.remaining() < Long.BYTES)
+            return;
+        long budget = (long) DatagramResponse.AMPLIFICATION * datagram.remaining();
+        long id = datagram.getLong(datagram.position());
+        DatagramRequest request = null;
+        String error = null;
+        try {
+            request = DatagramRequest.decode(datagram);
+        } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+        int from = request == null ? 0 : request.from();
+        var cacheKey = new CacheKey(client, id);
+        var chunks = cache.get(cacheKey);
+        if (chunks == null && from > 0) {
+            // rest of the response was asked for, but it is not cached, command is not run again
+            send(client, header(id, from, 0, DatagramResponse.STATUS_EXPIRED));
+            return;
+        }
+        if (chunks == null) {
+            chunks = request == null ? malformed(id, error) : respond(id, request);
+            cache.put(cacheKey, chunks);
+            for (var it : chunks) {
+                cachedBytes += it.capacity();
+            }
+            evict();
+        }
+        int next = from;
+        while (next < chunks.size() && chunks.get(next).remaining() <= budget) {
+            budget -= chunks.get(next).remaining();
+            send(client, chunks.get(next++).duplicate());
+        }
+        if (next == from && from < chunks.size())
+            send(client, header(id, from, chunks.size(), DatagramResponse.STATUS_TOO_SMALL));
+    }
+
+    private static ByteBuffer header(long id, int index, int count, byte status) {
+        var header = ByteBuffer.allocate(DatagramResponse.HEADER_SIZE);
+        DatagramResponse.putHeader(header, id, index, count, status);
+        return header;
+    }
+
+    private List<ByteBuffer> malformed(long id, String error) throws IOException {
+        output.clear();
+        output.put("Malformed request: " + error);
+        return chunk(id, DatagramResponse.STATUS_MALFORMED);
+    }
+
+    /**
+     * Runs the request and cuts its output into chunks
+     */
+    private List<ByteBuffer> respond(long id, DatagramRequest request) throws IOException {
+        byte status;
+        output.clear();
+        try {
+            var command = parser.compile(request.command(), request.args(), request.params());
+            status = manager.execute(command) ? DatagramResponse.STATUS_OK : DatagramResponse.STATUS_FAILED;
+            if (manager.abortTransaction())
+                output.put("Transactions can't span several requests, changes are rolled back");
+        } catch (RuntimeException ex) {
+            output.put("Error while processing the command: '" + ex.getMessage() + "'");
+            status = DatagramResponse.STATUS_FAILED;
+        }
+        if (output.isTruncated())
+            status |= DatagramResponse.STATUS_TRUNCATED;
+        return chunk(id, status);
+    }
+
+    private List<ByteBuffer> chunk(long id, byte status) throws IOException {
+        var chunker = new Chunker();
+        output.drainTo(chunker);
+        var chunks = chunker.finish();
+        for (int it = 0; it < chunks.size(); ++it) {
+            DatagramResponse.putHeader(chunks.get(it), id, it, chunks.size(), status);
+        }
+        return chunks;
+    }
+
+    private void evict() {
+        Iterator<List<ByteBuffer>> it = cache.values().iterator();
+        while ((cache.size() > CACHE_ENTRIES || cachedBytes > CACHE_BYTES) && it.hasNext()) {
+            for (var chunk : it.next()) {
+                cachedBytes -= chunk.capacity();
+            }
+            it.remove();
+        }
+    }
+
+    private void send(SocketAddress client, ByteBuffer chunk) throws IOException {
+        if (outgoing.isEmpty() && channel.send(chunk, client) > 0)
+            return;
+        outgoing.add(new Datagram(client, chunk));
+        // unread requests would keep the key readable and wake the selector in a loop
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Sends chunks that didn't fit into the socket buffer earlier,
+     * new requests are not read until the queue is empty, so
+     * the key waits only for writing meanwhile
+     */
+    private void sendQueued() throws IOException {
+        Datagram datagram;
+        while ((datagram = outgoing.peek()) != null) {
+            if (channel.send(datagram.chunk(), datagram.client()) == 0)
+                return;
+            outgoing.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private record CacheKey(SocketAddress client, long id) {}
+
+    private record Datagram(SocketAddress client, ByteBuffer chunk) {}
+
+    /**
+     * Cuts written bytes into datagrams with space for the header
+     */
+    private static class Chunker implements WritableByteChannel {
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current = null;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            while (src.hasRemaining()) {
+                if (current == null || !current.hasRemaining())
+                    next();
+                int count = Math.min(current.remaining(), src.remaining());
+                current.put(src.slice().limit(count));
+                src.position(src.position() + count);
+            }
+            return length;
+        }
+
+        private void next() {
+            current = ByteBuffer.allocate(DatagramResponse.MAX_DATAGRAM).position(DatagramResponse.HEADER_SIZE);
+            chunks.add(current);
+        }
+
+        /**
+         * @return Chunks ready to be sent, header is left empty
+         */
+        List<ByteBuffer> finish() {
+            if (chunks.isEmpty())
+                next();
+            var last = chunks.get(chunks.size() - 1);
+            for (var it : chunks) {
+                it.flip();
+            }
+            if (last.limit() < last.capacity())
+                chunks.set(chunks.size() - 1, ByteBuffer.allocate(last.limit()).put(last).flip());
+            return chunks;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * There is no interactive input over UDP
+     */
+    private static class NoInputHandler implements InputHandler {
+        @Override
+        public String get() {
+            throw new CommandRuntimeException("Interactive input is not available, pass the values as arguments");
+        }
+
+        @Override
+        public boolean hasNextLine() {
+            return false;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,102 @@
+package com.armemius.lab5.net;
+
+import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.io.InputHandler;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * NetworkInputHandler receives lines that were read from
+ * the connection by {@link CommandServer} event loop
+ *
+ * Command thread is shared by all the connections, so it never
+ * waits for a client: commands that ask for input (fields of a group,
+ * confirmations) get only the lines the client has already sent,
+ * otherwise they fail and the client is told to send the data
+ * along with the command (inline records, <i>-y</i>)
+ */
+public class NetworkInputHandler implements InputHandler {
+    private static final String END = new String("");
+
+    private final BlockingDeque<String> lines = new LinkedBlockingDeque<>();
+    private volatile boolean closed = false;
+
+    /**
+     * Takes the next line the client has sent
+     * @see InputHandler#get()
+     * @throws NoSuchElementException If connection was closed
+     * @throws CommandRuntimeException If client hasn't sent the line yet
+     */
+    @Override
+    public String get() {
+        String line = lines.pollFirst();
+        if (line == null)
+            throw new CommandRuntimeException("Interactive input isn't supported by this server, "
+                    + "send the answers together with the command or use inline records and -y (see 'insert --help')");
+        if (line == END) {
+            lines.offerFirst(END);
+            throw new NoSuchElementException("Connection closed");
+        }
+        return line;
+    }
+
+    /**
+     * Doesn't wait for the client
+     * @return True if the client has sent a line that is not consumed yet
+     * @see InputHandler#hasNextLine()
+     */
+    @Override
+    public boolean hasNextLine() {
+        return isReady();
+    }
+
+    /**
+     * @see InputHandler#isReady()
+     */
+    @Override
+    public boolean isReady() {
+        String line = lines.peekFirst();
+        return line != null && line != END;
+    }
+
+    /**
+     * Marks the end of input
+     * @see InputHandler#close()
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        lines.offerLast(END);
+    }
+
+    /**
+     * Adds a line received from the client
+     */
+    void offer(String line) {
+        if (!closed)
+            lines.offerLast(line);
+    }
+
+    /**
+     * @return Next received line or null if there is none yet
+     */
+    String poll() {
+        String line = lines.pollFirst();
+        if (line == END) {
+            lines.offerFirst(END);
+            return null;
+        }
+        return line;
+    }
+
+    /**
+     * @return Number of received lines that are not consumed yet
+     */
+    int size() {
+        return lines.size();
+    }
+}
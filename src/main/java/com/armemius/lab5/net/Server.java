@@ -0,0 +1,28 @@
+package com.armemius.lab5.net;
+
+import java.io.IOException;
+
+/**
+ * <b>Server</b> serves console sessions over the network
+ */
+public interface Server extends Runnable, AutoCloseable {
+    /**
+     * Opens the listening socket
+     * @return Port the server listens on
+     * @throws IOException If socket can't be bound
+     */
+    int bind() throws IOException;
+
+    /**
+     * Serves connections until server is closed,
+     * {@link #bind()} should be called before
+     */
+    @Override
+    void run();
+
+    /**
+     * Stops accepting connections and closes the open ones
+     */
+    @Override
+    void close();
+}
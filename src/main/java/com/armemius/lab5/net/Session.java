@@ -0,0 +1,337 @@
+package com.armemius.lab5.net;
+
+import com.armemius.lab5.ConsoleManager;
+import com.armemius.lab5.io.FlushingInputHandler;
+import com.armemius.lab5.io.OutputFlow;
+import com.armemius.lab5.io.console.BufferedConsoleOutputHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * <b>Session</b> is the state of one connection of {@link CommandServer}
+ *
+ * Bytes are read and cut into lines by the event loop thread,
+ * commands are run by the command thread one line per turn, so
+ * sessions take turns fairly. Output is written to the socket right
+ * away when possible, the rest is queued and written by the event loop
+ *
+ * Command thread never waits for the client: while more than
+ * {@value #MAX_PENDING_BYTES} bytes of output are queued, next lines of
+ * the session are not run, and if one command queues more than
+ * {@value #MAX_QUEUED_BYTES} bytes the connection is dropped. Commands that
+ * stream records (<b>show</b>, <b>filter</b>) are suspended the same way: records
+ * are requested from the collection only while the client keeps up, at most
+ * {@value #RECORDS_PER_TURN} per turn, and the rest of the line waits for them
+ */
+final class Session {
+    private static final int OUTPUT_BUFFER = 1 << 13;
+    private static final int MAX_LINE = 1 << 20;
+    private static final int MAX_QUEUED_LINES = 1024;
+    private static final long MAX_PENDING_BYTES = 1 << 23;
+    private static final long MAX_QUEUED_BYTES = 1 << 25;
+    private static final int RECORDS_PER_TURN = 1024;
+
+    private final CommandServer server;
+    private final SocketChannel channel;
+    private final NetworkInputHandler input;
+    private final Output output;
+    private final ConsoleManager manager;
+    private final Queue<ByteBuffer> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private SelectionKey key;
+    private byte[] carry = new byte[256];
+    private int carryLength = 0;
+    private final AtomicLong pending = new AtomicLong();
+    private volatile boolean readPaused = false;
+    private volatile boolean closing = false;
+    private volatile boolean closed = false;
+
+    Session(CommandServer server, SocketChannel channel) {
+        this.server = server;
+        this.channel = channel;
+        this.input = new NetworkInputHandler();
+        this.output = new Output();
+        var commandInput = new FlushingInputHandler(input, output);
+        this.manager = new ConsoleManager(commandInput, output, server.createParser(commandInput, output), false);
+    }
+
+    void register(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Sends greeting and the first prompt, runs on the command thread
+     */
+    void greet() {
+        output.put("Connected to the collection server\nType 'help' for information about commands");
+        output.hold("$ ");
+        output.flush();
+    }
+
+    /**
+     * Reads available bytes and queues complete lines, runs on the event loop
+     * @param buffer Shared buffer of the event loop
+     * @throws IOException If connection is broken
+     */
+    void read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int count = channel.read(buffer);
+        if (count < 0) {
+            close();
+            return;
+        }
+        byte[] bytes = buffer.array();
+        int start = 0;
+        for (int it = 0; it < count; ++it) {
+            if (bytes[it] != '\n')
+                continue;
+            if (carryLength == 0) {
+                input.offer(decode(bytes, start, it - start));
+            } else {
+                appendCarry(bytes, start, it - start);
+                input.offer(decode(carry, 0, carryLength));
+                carryLength = 0;
+            }
+            start = it + 1;
+        }
+        appendCarry(bytes, start, count - start);
+        if (carryLength > MAX_LINE) {
+            close();
+            return;
+        }
+        if (input.size() >= MAX_QUEUED_LINES) {
+            readPaused = true;
+            updateInterest();
+        }
+        schedule();
+    }
+
+    /**
+     * Writes queued output, runs on the event loop
+     * @throws IOException If connection is broken
+     */
+    void write() throws IOException {
+        long written = 0;
+        ByteBuffer buffer;
+        while ((buffer = outgoing.peek()) != null) {
+            written += channel.write(buffer);
+            if (buffer.hasRemaining())
+                break;
+            outgoing.poll();
+        }
+        if (written > 0)
+            release(written);
+        updateInterest();
+    }
+
+    /**
+     * Sets the events the session waits for, runs on the event loop
+     */
+    void updateInterest() {
+        if (closed || !key.isValid())
+            return;
+        if (closing && outgoing.isEmpty()) {
+            close();
+            return;
+        }
+        int ops = (readPaused ? 0 : SelectionKey.OP_READ) | (outgoing.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+        if (key.interestOps() != ops)
+            key.interestOps(ops);
+    }
+
+    /**
+     * Closes the connection after queued output is written,
+     * input that is not processed yet is dropped
+     */
+    void finish() {
+        closing = true;
+        server.update(this);
+    }
+
+    /**
+     * Closes the connection, commands waiting for
+     * input or for the client to read output are stopped
+     */
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        input.close();
+        if (key != null)
+            key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+        try {
+            server.execute(manager::abortTransaction);
+        } catch (RejectedExecutionException ignored) {}
+    }
+
+    private void schedule() {
+        if (closed || closing || (input.size() == 0 && !output.isStreaming()) || pending.get() > MAX_PENDING_BYTES
+                || !scheduled.compareAndSet(false, true))
+            return;
+        try {
+            server.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * Continues suspended output or runs one received line, runs on the command thread
+     */
+    private void runNext() {
+        try {
+            if (closed || closing)
+                return;
+            if (manager.isSuspended()) {
+                manager.resume();
+            } else {
+                String line = input.poll();
+                if (line != null)
+                    manager.step(line);
+            }
+            if (!manager.isRunning())
+                finish();
+        } catch (RuntimeException ex) {
+            if (!closed) {
+                try {
+                    output.put("Error while processing the command: '" + ex.getMessage() + "'");
+                    output.hold("$ ");
+                    output.flush();
+                } catch (RuntimeException ignored) {}
+            }
+        } finally {
+            if (readPaused && input.size() < MAX_QUEUED_LINES / 2) {
+                readPaused = false;
+                server.update(this);
+            }
+            scheduled.set(false);
+            schedule();
+        }
+    }
+
+    private static String decode(byte[] bytes, int start, int length) {
+        if (length > 0 && bytes[start + length - 1] == '\r')
+            --length;
+        return new String(bytes, start, length, StandardCharsets.UTF_8);
+    }
+
+    private void appendCarry(byte[] bytes, int from, int length) {
+        if (carryLength + length > carry.length)
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+        System.arraycopy(bytes, from, carry, carryLength, length);
+        carryLength += length;
+    }
+
+    /**
+     * Accounts written output, lines that were held back
+     * because of unread output are scheduled again
+     */
+    private void release(long bytes) {
+        if (pending.addAndGet(-bytes) <= MAX_PENDING_BYTES)
+            schedule();
+    }
+
+    /**
+     * Output handler of the session, streamed records are requested
+     * in batches while the client reads the output, see {@link Session}
+     */
+    private class Output extends BufferedConsoleOutputHandler {
+        private volatile OutputFlow<?> flow = null;
+
+        private Output() {
+            super(new Sink(), OUTPUT_BUFFER);
+        }
+
+        @Override
+        public <T> void stream(Flow.Publisher<? extends T> publisher, Consumer<? super T> writer, Runnable end) {
+            flow = new OutputFlow<T>(publisher, writer, end);
+            resume(false);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return flow != null;
+        }
+
+        @Override
+        public void resume(boolean wait) {
+            var current = flow;
+            if (current == null)
+                return;
+            int requested = 0;
+            try {
+                while (!closed && (wait || (requested < RECORDS_PER_TURN && pending.get() <= MAX_PENDING_BYTES))) {
+                    requested += OutputFlow.BATCH;
+                    if (current.request(OutputFlow.BATCH)) {
+                        flow = null;
+                        return;
+                    }
+                }
+                if (closed)
+                    flow = null;
+            } catch (RuntimeException ex) {
+                flow = null;
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Channel for the output handler: writes to the socket directly
+     * if nothing is queued, otherwise queues a copy for the event loop
+     */
+    private class Sink implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int length = src.remaining();
+            if (closed) {
+                src.position(src.limit());
+                return length;
+            }
+            if (outgoing.isEmpty()) {
+                try {
+                    channel.write(src);
+                } catch (IOException e) {
+                    close();
+                    src.position(src.limit());
+                    return length;
+                }
+                if (!src.hasRemaining())
+                    return length;
+            }
+            int rest = src.remaining();
+            outgoing.add(ByteBuffer.allocate(rest).put(src).flip());
+            if (pending.addAndGet(rest) > MAX_QUEUED_BYTES) {
+                // client doesn't read the output, the rest of it is discarded
+                close();
+                return length;
+            }
+            server.update(Session.this);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,243 @@
+package com.armemius.lab5.net;
+
+import com.armemius.lab5.ConsoleManager;
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.CompiledCommand;
+import com.armemius.lab5.io.FlushingInputHandler;
+import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.console.BufferedConsoleOutputHandler;
+import com.armemius.lab5.io.console.BufferedInputHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * <b>ThreadedCommandServer</b> runs every connection as an ordinary
+ * blocking {@link ConsoleManager} session on its own thread, so prompts
+ * of the commands simply wait for the next line of the client
+ *
+ * Virtual threads are used when the runtime has them, otherwise sessions
+ * get platform threads with small stacks. Buffers of the session are small
+ * as well, so a session that waits in the middle of a command costs little.
+ * Commands of all the sessions are serialised by one lock, which is released
+ * while a command waits for input, so a waiting client doesn't block others
+ */
+public class ThreadedCommandServer implements Server {
+    private static final int SESSION_BUFFER = 1 << 12;
+    private static final long PLATFORM_STACK_SIZE = 1 << 18;
+
+    private final InetSocketAddress address;
+    private final BiFunction<InputHandler, OutputHandler, CommandParser> parsers;
+    private final ThreadFactory threads = sessionThreads();
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private volatile boolean running = false;
+
+    /**
+     * @param address Address to listen on
+     * @param parsers Creates parser for each connection from its input and output handlers
+     */
+    public ThreadedCommandServer(InetSocketAddress address, BiFunction<InputHandler, OutputHandler, CommandParser> parsers) {
+        this.address = address;
+        this.parsers = parsers;
+    }
+
+    /**
+     * @see Server#bind()
+     */
+    @Override
+    public int bind() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address, 1024);
+        running = true;
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections and starts their sessions until server is closed
+     * @see Server#run()
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                threads.newThread(() -> serve(socket)).start();
+            }
+        } catch (IOException e) {
+            if (running)
+                System.err.println("Server stopped: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * @see Server#close()
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (serverSocket != null)
+                serverSocket.close();
+        } catch (IOException ignored) {}
+        for (var it : sockets) {
+            try {
+                it.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void serve(Socket socket) {
+        ConsoleManager manager = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            var output = new BufferedConsoleOutputHandler(Channels.newChannel(socket.getOutputStream()), SESSION_BUFFER);
+            var input = new UnlockingInputHandler(new FlushingInputHandler(
+                    new BufferedInputHandler(socket.getInputStream(), false, SESSION_BUFFER), output), lock);
+            var parser = new LockedParser(parsers.apply(input, output), lock);
+            manager = new ConsoleManager(input, output, parser, false);
+            manager.run();
+        } catch (SocketException | UncheckedIOException | NoSuchElementException e) {
+            // Client has disconnected
+        } catch (IOException | RuntimeException e) {
+            if (running)
+                System.err.println("Session ended with error: " + e);
+        } finally {
+            sockets.remove(socket);
+            if (manager != null)
+                abortTransaction(manager);
+        }
+    }
+
+    private void abortTransaction(ConsoleManager manager) {
+        lock.lock();
+        try {
+            manager.abortTransaction();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Virtual thread factory when it is available (Java 21+),
+     * platform daemon threads with small stacks otherwise
+     */
+    private static ThreadFactory sessionThreads() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "session-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            var counter = new AtomicInteger();
+            return it -> {
+                Thread thread = new Thread(null, it, "session-" + counter.getAndIncrement(), PLATFORM_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Parser that runs commands under the lock shared by all the sessions
+     */
+    private record LockedParser(CommandParser parser, ReentrantLock lock) implements CommandParser {
+        @Override
+        public boolean parse(String raw) {
+            lock.lock();
+            try {
+                return parser.parse(raw);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public CompiledCommand compile(String raw) {
+            return parser.compile(raw);
+        }
+
+        @Override
+        public CompiledCommand compile(String command, List<String> args, String params) {
+            return parser.compile(command, args, params);
+        }
+
+        @Override
+        public boolean execute(CompiledCommand command) {
+            lock.lock();
+            try {
+                return parser.execute(command);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Input that releases the lock of running command
+     * while it waits for the client
+     */
+    private record UnlockingInputHandler(InputHandler input, ReentrantLock lock) implements InputHandler {
+        @Override
+        public String get() {
+            int holds = release();
+            try {
+                return input.get();
+            } finally {
+                reacquire(holds);
+            }
+        }
+
+        @Override
+        public boolean hasNextLine() {
+            int holds = release();
+            try {
+                return input.hasNextLine();
+            } finally {
+                reacquire(holds);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return input.isReady();
+        }
+
+        @Override
+        public void close() {
+            input.close();
+        }
+
+        private int release() {
+            int holds = lock.getHoldCount();
+            for (int it = 0; it < holds; ++it) {
+                lock.unlock();
+            }
+            return holds;
+        }
+
+        private void reacquire(int holds) {
+            for (int it = 0; it < holds; ++it) {
+                lock.lock();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+
+@Parametrized
+public class BeginTask implements Task {
+    /**
+     * Action for <b>begin</b> command
+     * Doesn't receive arguments
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler output = context.outputHandler();
+        if (context.params().contains("h")) {
+            output.put("""
+                        Syntax:
+                        > begin
+                        Command starts a transaction: following changes are seen only
+                        by this session until 'commit' applies them all at once or 'rollback' discards them.
+                        If one of the commands fails, the transaction can only be rolled back
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        """);
+            return;
+        }
+        if (CollectionManager.getTransaction() != null) {
+            output.put("Transaction is already started");
+            return;
+        }
+        CollectionManager.begin();
+        output.put("Transaction started");
+    }
+}
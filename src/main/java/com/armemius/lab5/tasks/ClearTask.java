@@ -36,9 +36,7 @@ public class ClearTask extends InputTask {
             return;
         }
         if (!context.params().contains("f")) {
-            outputHandler.hold("Are you sure, all unsaved data will be lost? (Empty input if yes) ");
-            String response = inputHandler.get();
-            if (!response.isBlank()) {
+            if (!confirm(inputHandler, outputHandler, "Are you sure, all unsaved data will be lost? (Empty input if yes) ")) {
                 outputHandler.put("Operation aborted");
                 return;
             }
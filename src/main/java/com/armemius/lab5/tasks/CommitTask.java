@@ -0,0 +1,32 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+
+@Parametrized
+public class CommitTask implements Task {
+    /**
+     * Action for <b>commit</b> command
+     * Doesn't receive arguments
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler output = context.outputHandler();
+        if (context.params().contains("h")) {
+            output.put("""
+                        Syntax:
+                        > commit
+                        Command applies all the changes of the transaction to the collection at once
+                        Transaction is rolled back if another session has changed or removed an element it changes
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        """);
+            return;
+        }
+        int changes = CollectionManager.commit();
+        output.put("Transaction committed, " + changes + " element(s) changed");
+    }
+}
@@ -1,21 +1,31 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.CommandParser;
+import com.armemius.lab5.commands.CompiledCommand;
 import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.commands.script.CompiledScript;
+import com.armemius.lab5.commands.script.ScriptCache;
+import com.armemius.lab5.commands.script.ScriptStream;
 import com.armemius.lab5.io.OutputHandler;
 import com.armemius.lab5.tasks.Task;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.StringJoiner;
 
 @Parametrized
 public class ExecuteTask implements Task {
+    private static final long STREAMING_THRESHOLD = 1 << 23;
+    private static final ThreadLocal<Deque<Path>> activeScripts = ThreadLocal.withInitial(ArrayDeque::new);
+
     /**
      * Action for <b>execute</b> command
      * Receives one argument
@@ -37,42 +47,123 @@ public class ExecuteTask implements Task {
         if (context.args().size() < 1)
             throw new CommandArgumentException("Argument wasn't provided");
         outputHandler.put("Executing script");
-        String scriptPath = context.args().get(0);
-        String test = checkRecursion(scriptPath, new HashSet<>());
-        if (test != null) {
-            throw new CommandArgumentException("Recursion detected: " + test);
+        var parser = context.parser();
+        Path path = toPath(context.args().get(0));
+        var active = activeScripts.get();
+        if (active.contains(path)) {
+            var chain = new StringJoiner(" -> ");
+            boolean inCycle = false;
+            for (var it : active) {
+                inCycle |= it.equals(path);
+                if (inCycle)
+                    chain.add(it.toString());
+            }
+            throw new CommandArgumentException("Recursion detected: " + chain.add(path.toString()));
         }
-        try (Scanner scanner = new Scanner(new File(scriptPath))) {
-            while (scanner.hasNextLine()) {
-                context.parser().parse(scanner.nextLine());
+        boolean large = isLarge(path);
+        if (!large) {
+            String cycle = findCycle(path, parser);
+            if (cycle != null) {
+                throw new CommandArgumentException("Recursion detected: " + cycle);
             }
-        } catch (FileNotFoundException e) {
-            throw new CommandArgumentException("Error while reading the file");
+        }
+        active.addLast(path);
+        try {
+            if (large) {
+                executeStream(path, parser);
+            } else {
+                for (var it : loadScript(path, parser).commands()) {
+                    parser.execute(it);
+                }
+            }
+        } finally {
+            active.removeLast();
         }
     }
 
-    private String checkRecursion(String path, Set<String> used) {
-        StringBuilder script = new StringBuilder();
-        try (Scanner scanner = new Scanner(new File(path))) {
-            while (scanner.hasNextLine()) {
-                script.append(scanner.nextLine()).append('\n');
+    /**
+     * Executes the script while it is being read and compiled by {@link ScriptStream},
+     * nested scripts are checked for recursion when they are reached
+     */
+    private void executeStream(Path path, CommandParser parser) {
+        try (var stream = new ScriptStream(path, parser)) {
+            CompiledCommand command;
+            while ((command = stream.next()) != null) {
+                parser.execute(command);
             }
-            Matcher matcher = Pattern.compile("execute\\s+(.+)\n", Pattern.MULTILINE).matcher(script);
-            while (matcher.find()) {
-                String match = matcher.group(1);
-                if (used.contains(path)) {
-                    return path;
-                }
-                used.add(path);
-                System.out.println(match);
-                String recursion = checkRecursion(match, new HashSet<>(used));
-                if (recursion == null)
-                    return null;
-                return path + " -> " + recursion;
+        } catch (IOException e) {
+            throw new CommandArgumentException("Error while reading the file '" + path + "'");
+        }
+    }
+
+    /**
+     * Scripts larger than {@link #STREAMING_THRESHOLD} are not compiled
+     * as a whole and cached, they are streamed instead
+     */
+    private static boolean isLarge(Path path) {
+        try {
+            return Files.size(path) > STREAMING_THRESHOLD;
+        } catch (IOException e) {
+            throw new CommandArgumentException("Error while reading the file '" + path + "'");
+        }
+    }
+
+    /**
+     * Walks the graph of scripts included with <b>execute</b> once, depth first,
+     * large scripts are skipped, they are checked when they are reached
+     * @return Chain of scripts that forms a cycle or null if there are no cycles
+     */
+    private String findCycle(Path root, CommandParser parser) {
+        Set<Path> done = new HashSet<>();
+        Set<Path> visiting = new HashSet<>();
+        Deque<Path> chain = new ArrayDeque<>();
+        return visit(root, parser, done, visiting, chain);
+    }
+
+    private String visit(Path path, CommandParser parser, Set<Path> done, Set<Path> visiting, Deque<Path> chain) {
+        chain.addLast(path);
+        if (visiting.contains(path)) {
+            var result = new StringJoiner(" -> ");
+            boolean inCycle = false;
+            for (var it : chain) {
+                inCycle |= it.equals(path);
+                if (inCycle)
+                    result.add(it.toString());
+            }
+            return result.toString();
+        }
+        if (!done.contains(path)) {
+            visiting.add(path);
+            for (var it : loadScript(path, parser).commands()) {
+                if (it.node() == null || !(it.node().getTask() instanceof ExecuteTask) || it.args().isEmpty())
+                    continue;
+                var include = toPath(it.args().get(0));
+                if (isLarge(include))
+                    continue;
+                var cycle = visit(include, parser, done, visiting, chain);
+                if (cycle != null)
+                    return cycle;
             }
-        } catch (FileNotFoundException e) {
-            throw new CommandArgumentException("Error while reading the file");
+            visiting.remove(path);
+            done.add(path);
         }
+        chain.removeLast();
         return null;
     }
+
+    private static Path toPath(String path) {
+        try {
+            return Path.of(path).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            throw new CommandArgumentException("Incorrect path '" + path + "'");
+        }
+    }
+
+    private CompiledScript loadScript(Path path, CommandParser parser) {
+        try {
+            return ScriptCache.get(path, parser);
+        } catch (IOException e) {
+            throw new CommandArgumentException("Error while reading the file '" + path + "'");
+        }
+    }
 }
@@ -58,9 +58,7 @@ public class ExitTask extends InputTask {
             }
         }
         if (!context.params().contains("f") && !context.params().contains("s")) {
-            outputHandler.hold("Are you sure, all unsaved data will be lost? (Empty input if yes) ");
-            String response = inputHandler.get();
-            if (!response.isBlank()) {
+            if (!confirm(inputHandler, outputHandler, "Are you sure, all unsaved data will be lost? (Empty input if yes) ")) {
                 outputHandler.put("Operation aborted");
                 return;
             }
@@ -1,6 +1,9 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.exceptions.CollectionFileException;
+import com.armemius.lab5.collection.generator.DatasetGenerator;
+import com.armemius.lab5.collection.generator.DatasetSpec;
 import com.armemius.lab5.commands.CommandContext;
 import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
@@ -8,10 +11,10 @@ import com.armemius.lab5.commands.params.Parametrized;
 import com.armemius.lab5.io.OutputHandler;
 
 @Parametrized
-public class FillTask extends InsertTask {
+public class FillTask implements Task {
     /**
      * Action for <b>fill</b> command
-     * Doesn't receive arguments
+     * Receives amount and options of the generator as arguments
      * @param context
      */
     @Override
@@ -20,8 +23,16 @@ public class FillTask extends InsertTask {
         if (context.params().contains("h")) {
             outputHandler.put("""
                         Syntax:
-                        > fill <amount>
+                        > fill <amount> [option=value ...]
                         Inserts specified amount of random groups
+                        Same seed always gives the same groups (except creation date), options:
+                        seed=<integer>\t\t\tSeed of the generator, random by default
+                        names=<count>\t\t\tNumber of distinct group names (1000 by default)
+                        adminNames=<count>\t\tNumber of distinct admin names (1000 by default)
+                        markSkew=<number>\t\tMark is 2 + 3 * u^markSkew, >1 gives more low marks, <1 more high marks
+                        semesterEnum=<weights>\tFrequencies of values, e.g. THIRD:3,SECOND:1,null:1
+                        eyeColor=, hairColor=, nationality=<weights>\tSame for the admin
+                        file=<path>\t\t\t\tWrite groups to the file in the format of the collection instead of inserting them
                         PARAMS:
                         -h / --help\t\tShow this menu
                         """);
@@ -29,17 +40,39 @@ public class FillTask extends InsertTask {
         }
         if (context.args().size() < 1)
             throw new CommandArgumentException("Argument wasn't provided");
+        int amount;
         try {
-            int id = Integer.parseInt(context.args().get(0));
-            if (id < 1)
-                throw new CommandRuntimeException("Incorrect value type provided");
-            for (int it = 0; it < id; ++it) {
-                CollectionManager.add(super.genRandomGroup());
-            }
-            outputHandler.put("Inserted " + id + " element(s)");
+            amount = Integer.parseInt(context.args().get(0));
         }
         catch (NumberFormatException ex) {
             throw new CommandRuntimeException("Incorrect value type provided");
         }
+        if (amount < 1)
+            throw new CommandRuntimeException("Incorrect value type provided");
+        var spec = new DatasetSpec(System.nanoTime());
+        String file = null;
+        for (var it : context.args().subList(1, context.args().size())) {
+            int equals = it.indexOf('=');
+            if (equals < 1)
+                throw new CommandArgumentException("Expected option=value instead of '" + it + "'");
+            String key = it.substring(0, equals);
+            String value = it.substring(equals + 1);
+            if (key.equals("file"))
+                file = value;
+            else
+                spec.set(key, value);
+        }
+        var generator = new DatasetGenerator(spec);
+        if (file != null) {
+            try {
+                long count = CollectionManager.write(file, generator.iterator(amount));
+                outputHandler.put("Written " + count + " element(s) to '" + file + "', seed " + spec.getSeed());
+            } catch (CollectionFileException e) {
+                throw new CommandRuntimeException("Unable to write '" + file + "': " + e.getMessage());
+            }
+            return;
+        }
+        CollectionManager.addAll(generator.generate(amount));
+        outputHandler.put("Inserted " + amount + " element(s), seed " + spec.getSeed());
     }
 }
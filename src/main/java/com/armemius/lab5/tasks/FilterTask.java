@@ -8,12 +8,19 @@ import com.armemius.lab5.commands.params.Param;
 import com.armemius.lab5.commands.params.Parametrized;
 import com.armemius.lab5.io.InputHandler;
 import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.format.RecordFormat;
 import com.armemius.lab5.tasks.Task;
 
 @Parametrized(
         params = {
                 @Param(letter = "h", name = "help"),
-                @Param(letter = "r", name = "regex")
+                @Param(letter = "r", name = "regex"),
+                @Param(letter = "j", name = "json"),
+                @Param(letter = "v", name = "csv"),
+                @Param(letter = "t", name = "table")
+        },
+        incompatible = {
+                @Conflict({"j", "v", "t"})
         }
 )
 public class FilterTask implements Task {
@@ -34,21 +41,23 @@ public class FilterTask implements Task {
                         PARAMS:
                         -h / --help\tShow this menu
                         -r / --regex\tSubstring will be interpreted as regex pattern
+                        -j / --json\tOutput groups as JSON, one object per line
+                        -v / --csv\tOutput groups as CSV with header
+                        -t / --table\tOutput groups as table
                         """);
             return;
         }
         if (context.args().size() < 1)
             throw new CommandArgumentException("Argument wasn't provided");
         String substring = context.args().get(0);
-        outputHandler.put("Filtering results" + (context.params().contains("r") ? "(regex)" : ""));
-        if (context.params().contains("r")) {
-            for (var it : CollectionManager.filterContentRegex(substring)) {
-                outputHandler.put(it.toString());
-            }
-        } else {
-            for (var it : CollectionManager.filterContent(substring)) {
-                outputHandler.put(it.toString());
-            }
-        }
+        var groups = context.params().contains("r")
+                ? CollectionManager.filterContentRegex(substring)
+                : CollectionManager.filterContent(substring);
+        var format = RecordFormat.of(context.params());
+        if (!format.isMachineReadable())
+            outputHandler.put("Filtering results" + (context.params().contains("r") ? "(regex)" : ""));
+        var writer = format.writer(outputHandler);
+        writer.begin();
+        outputHandler.stream(groups, writer::write, writer::end);
     }
 }
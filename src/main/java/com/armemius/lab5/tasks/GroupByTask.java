@@ -0,0 +1,53 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+import com.armemius.lab5.commands.params.Param;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "s", name = "sum")
+        }
+)
+public class GroupByTask implements Task {
+    /**
+     * Action for <b>groupby</b> command
+     * Receives one or two arguments
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler outputHandler = context.outputHandler();
+        if (context.params().contains("h")) {
+            outputHandler.put("""
+                        Syntax:
+                        > groupby <field> [--sum <numeric field>]
+                        This command outputs the number of groups for every value of the field
+                        Available fields: semesterEnum, groupAdmin.eyeColor, groupAdmin.hairColor, groupAdmin.nationality
+                        Numeric fields: studentsCount, expelledStudents, averageMark
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        -s / --sum\tAlso output the sum and the mean of the numeric field
+                        """);
+            return;
+        }
+        if (context.args().size() < 1)
+            throw new CommandArgumentException("Argument wasn't provided");
+        boolean sum = context.params().contains("s");
+        if (sum != (context.args().size() > 1))
+            throw new CommandArgumentException(sum ? "Numeric field wasn't provided" : "Too much arguments");
+        var key = GroupField.byPath(context.args().get(0));
+        var measure = sum ? GroupField.byPath(context.args().get(1)) : null;
+        var groups = CollectionManager.groupBy(key, measure);
+        outputHandler.put("Groups by " + key + (sum ? ", sum of " + measure : "") + ":");
+        for (var it : groups) {
+            outputHandler.put(it.value() + "\t" + it.count()
+                    + (sum ? "\t" + it.sum() + "\t" + it.sum() / it.count() : ""));
+        }
+    }
+}
@@ -49,5 +49,13 @@ public class HelpTask implements Task {
                     filter <value> -- Outputs the elements where specified value is substring of the 'name' field in collection's elements""");
         // Auxiliary commands
         output.put("getenv -- Outputs the value of 'LAB_5_PATH'");
+        output.put("fill <amount> [option=value ...] -- Inserts random elements, seed=<n> makes them reproducible, file=<path> writes them to a file");
+        output.put("query <expression> -- Outputs the elements that match the expression, e.g. studentsCount > 20 and semesterEnum = THIRD");
+        output.put("top <k> <field> -- Outputs k elements with the greatest values of the field (--asc for the lowest)");
+        output.put("stats [field] -- Outputs statistics of studentsCount, expelledStudents and averageMark");
+        output.put("groupby <field> [--sum <numeric field>] -- Outputs the number of elements for every value of enum field");
+        output.put("begin / commit / rollback -- Starts a transaction, applies or discards its changes at once");
+        output.put("metrics [command] -- Outputs number of runs, failures and latency percentiles of the commands");
+        output.put("Several commands can be put on one line separated by ';', e.g. fill 10; count 3.5; show");
     }
 }
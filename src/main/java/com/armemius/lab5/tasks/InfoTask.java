@@ -1,13 +1,13 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.data.StudyGroup;
 import com.armemius.lab5.commands.CommandContext;
 import com.armemius.lab5.commands.params.Param;
 import com.armemius.lab5.commands.params.Parametrized;
 import com.armemius.lab5.io.OutputHandler;
 import com.armemius.lab5.tasks.Task;
 
-import java.time.format.DateTimeFormatter;
 
 @Parametrized
 public class InfoTask implements Task {
@@ -30,7 +30,7 @@ public class InfoTask implements Task {
             return;
         }
         output.put("Collection statistics:");
-        output.put("Init time:\t" + CollectionManager.getCreationTime().format(DateTimeFormatter.ofPattern("HH:mm:ss dd/MM/yyyy")));
+        output.put("Init time:\t" + CollectionManager.getCreationTime().format(StudyGroup.DATE_FORMAT));
         output.put("Elements:\t" + CollectionManager.getElementsCount());
         output.put("Type:\t\t" + CollectionManager.getCollectionType());
     }
@@ -1,13 +1,27 @@
 package com.armemius.lab5.tasks;
 
+import com.armemius.lab5.ConsoleManager;
 import com.armemius.lab5.commands.CommandContext;
 import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
 import com.armemius.lab5.io.InputHandler;
+import com.armemius.lab5.io.OutputHandler;
 
 /**
  * <b>InputTask</b> class represents tasks for commands with input
  */
 public abstract class InputTask implements Task {
+    /**
+     * Auxiliary function, asks user to confirm the action with
+     * an empty line, in batch mode confirmation is given automatically
+     * @return True if action is confirmed
+     */
+    protected boolean confirm(InputHandler inputHandler, OutputHandler outputHandler, String question) {
+        if (ConsoleManager.isBatch())
+            return true;
+        outputHandler.hold(question);
+        return inputHandler.get().isBlank();
+    }
+
     /**
      * Auxiliary function, contains logic
      * for inputting String
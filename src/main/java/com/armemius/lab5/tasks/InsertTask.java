@@ -1,8 +1,12 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.InlineRecord;
 import com.armemius.lab5.collection.data.*;
+import com.armemius.lab5.collection.generator.DatasetGenerator;
+import com.armemius.lab5.collection.generator.DatasetSpec;
 import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
 import com.armemius.lab5.commands.params.Param;
 import com.armemius.lab5.commands.params.Parametrized;
 import com.armemius.lab5.io.InputHandler;
@@ -12,10 +16,13 @@ import com.armemius.lab5.tasks.RequestTask;
 @Parametrized(
         params = {
                 @Param(letter = "h", name = "help"),
-                @Param(letter = "r", name = "random")
+                @Param(letter = "r", name = "random"),
+                @Param(letter = "y", name = "yes")
         }
 )
 public class InsertTask extends RequestTask {
+    private DatasetGenerator generator = null;
+
     /**
      * Action for <b>insert</b> command
      * Doesn't receive arguments
@@ -28,74 +35,57 @@ public class InsertTask extends RequestTask {
         if (context.params().contains("h")) {
             outputHandler.put("""
                         Syntax:
-                        > insert
+                        > insert [record]
                         Insert command stands for adding new elements inside collection
                         After the command is received process of building new StudyGroup begins, where you should input valid field values for the new group
+                        Instead the whole group can be provided in one line as JSON or key=value pairs with field paths, e.g.
+                        > insert name="Group A" coordinates.x=1 coordinates.y=2 studentsCount=20 expelledStudents=1 averageMark=4.5 semesterEnum=THIRD groupAdmin.name=Admin groupAdmin.height=180 groupAdmin.eyeColor=GREEN groupAdmin.hairColor=RED groupAdmin.nationality=CHINA groupAdmin.location.x=1 groupAdmin.location.y=2 groupAdmin.location.z=3
+                        Values with spaces are put in double quotes, parameters go before or after the record
                         PARAMS:
                         -h / --help\t\tShow this menu
                         -r / --random\tSkip the process of creating group and instead generate it randomly
+                        -y / --yes\t\tDon't ask for confirmation
                         """);
             return;
         }
+        var record = getInlineRecord(context, 0);
         if (context.params().contains("r")) {
+            if (record != null)
+                throw new CommandArgumentException("Random group can't be combined with inline record");
             outputHandler.put("Inserting random element");
             CollectionManager.add(genRandomGroup());
             return;
         }
         outputHandler.put("Inserting new element");
+        if (record != null) {
+            var group = InlineRecord.parse(record);
+            if (!context.params().contains("y")) {
+                outputHandler.put("You want to add group: " + group);
+                if (!confirm(inputHandler, outputHandler, "Proceed? (Input empty line if yes) ")) {
+                    outputHandler.put("Operation aborted");
+                    return;
+                }
+            }
+            CollectionManager.add(group);
+            return;
+        }
         StudyGroup group = null;
         while (group == null) {
             group = requestGroup(inputHandler, outputHandler);
             outputHandler.put("You want to add group: " + group);
-            outputHandler.hold("Proceed? (Input empty line if yes) ");
-            String response = inputHandler.get();
-            if (!response.isBlank())
+            if (!context.params().contains("y") && !confirm(inputHandler, outputHandler, "Proceed? (Input empty line if yes) "))
                 group = null;
         }
         CollectionManager.add(group);
     }
 
+    /**
+     * Generates random group without id, generator is created with the first group
+     * and then continues its stream, so groups of one session don't repeat
+     */
     protected StudyGroup genRandomGroup() {
-        return new StudyGroup(CollectionManager.genId(),
-                "GROUP_NAME" + (int)(Math.random() * 1000),
-                new Coordinates((int)(Math.random() * 200000 - 100000), (long)(Math.random() * 10215 - 215)),
-                (long)(Math.random() * 20 + 10),
-                (int)(Math.random() * 5 + 1),
-                Math.random() * 3 + 2,
-                switch ((int)(Math.random() * 5)) {
-                    case 0 -> Semester.SECOND;
-                    case 1 -> Semester.THIRD;
-                    case 2 -> Semester.SEVENTH;
-                    case 3 -> Semester.EIGHTH;
-                    default -> null;
-                },
-                new Person(
-                        "ADMIN_NAME" + (int)(Math.random() * 1000),
-                        (float)(Math.random() * 50 + 150),
-                        switch ((int)(Math.random() * 3)) {
-                            case 0 -> EyeColor.GREEN;
-                            case 1 -> EyeColor.WHITE;
-                            default -> EyeColor.YELLOW;
-                        },
-                        switch ((int)(Math.random() * 5)) {
-                            case 0 -> HairColor.BLACK;
-                            case 1 -> HairColor.GREEN;
-                            case 2 -> HairColor.ORANGE;
-                            case 3 -> HairColor.RED;
-                            default -> HairColor.WHITE;
-                        },
-                        switch ((int)(Math.random() * 4)) {
-                            case 0 -> Country.CHINA;
-                            case 1 -> Country.SOUTH_KOREA;
-                            case 2 -> Country.UNITED_KINGDOM;
-                            default -> Country.VATICAN;
-                        },
-                        new Location(
-                                (long)(Math.random() * 200000 - 10000),
-                                Math.random() * 200000 - 10000,
-                                (long)(Math.random() * 200000 - 10000)
-                        )
-                )
-        );
+        if (generator == null)
+            generator = new DatasetGenerator(new DatasetSpec(System.nanoTime()));
+        return generator.next();
     }
 }
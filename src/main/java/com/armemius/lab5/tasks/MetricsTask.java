@@ -0,0 +1,70 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.metrics.CommandMetrics;
+import com.armemius.lab5.commands.params.Conflict;
+import com.armemius.lab5.commands.params.Param;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+
+import java.util.Locale;
+
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "r", name = "raw"),
+                @Param(letter = "c", name = "reset")
+        },
+        incompatible = {
+                @Conflict({"r", "c"})
+        }
+)
+public class MetricsTask implements Task {
+    /**
+     * Action for <b>metrics</b> command
+     * Receives up to one argument
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler outputHandler = context.outputHandler();
+        if (context.params().contains("h")) {
+            outputHandler.put("""
+                        Syntax:
+                        > metrics [command]
+                        This command outputs number of runs, failures and latency percentiles of the commands
+                        since start of the program, '(parse)' is time of parsing command lines
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        -r / --raw\tOutput one line per command with latencies in nanoseconds:
+                        \t\tcommand count errors sum p50 p90 p99 p999 max
+                        -c / --reset\tRemove recorded values
+                        """);
+            return;
+        }
+        if (context.params().contains("c")) {
+            CommandMetrics.reset();
+            outputHandler.put("Metrics are reset");
+            return;
+        }
+        String filter = context.args().isEmpty() ? null : context.args().get(0);
+        boolean raw = context.params().contains("r");
+        if (!raw)
+            outputHandler.put("Command\t\tRuns\tErrors\tp50 ms\tp99 ms\tmax ms");
+        for (var it : CommandMetrics.snapshot()) {
+            if (filter != null && !filter.equals(it.command()))
+                continue;
+            var latency = it.latency();
+            if (raw) {
+                outputHandler.put(String.format(Locale.ROOT, "%s %d %d %d %d %d %d %d %d",
+                        it.command(), it.count(), it.errors(), latency.sum(),
+                        latency.percentile(0.5), latency.percentile(0.9), latency.percentile(0.99),
+                        latency.percentile(0.999), latency.max()));
+            } else {
+                outputHandler.put(String.format(Locale.ROOT, "%-15s\t%d\t%d\t%.3f\t%.3f\t%.3f",
+                        it.command(), it.count(), it.errors(),
+                        latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6, latency.max() / 1e6));
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.query.Query;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+import com.armemius.lab5.commands.params.Conflict;
+import com.armemius.lab5.commands.params.Param;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.format.RecordFormat;
+
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "c", name = "count"),
+                @Param(letter = "e", name = "explain"),
+                @Param(letter = "j", name = "json"),
+                @Param(letter = "v", name = "csv"),
+                @Param(letter = "t", name = "table")
+        },
+        incompatible = {
+                @Conflict({"c", "e"}),
+                @Conflict({"j", "v", "t"})
+        }
+)
+public class QueryTask implements Task {
+    /**
+     * Action for <b>query</b> command
+     * Receives expression as arguments
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler outputHandler = context.outputHandler();
+        if (context.params().contains("h")) {
+            outputHandler.put("""
+                        Syntax:
+                        > query <expression>
+                        This command allows you to get all the groups that match the expression
+                        Example: studentsCount > 20 and semesterEnum = THIRD and groupAdmin.nationality = CHINA
+                        Operators: = != < <= > >= ~ (regex for string fields), and, or, not, parentheses
+                        Values that contain spaces are put in single quotes, e.g. name = 'Group A'
+                        Double quotes are removed by the command line, they keep words that start with '-' from being parameters, e.g. name = "'A -x'"
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        -c / --count\tShow only the number of matched groups
+                        -e / --explain\tShow how the query will be executed
+                        -j / --json\tOutput groups as JSON, one object per line
+                        -v / --csv\tOutput groups as CSV with header
+                        -t / --table\tOutput groups as table
+                        """);
+            return;
+        }
+        if (context.args().size() < 1)
+            throw new CommandArgumentException("Argument wasn't provided");
+        Query query = Query.compile(String.join(" ", context.args()));
+        if (context.params().contains("e")) {
+            outputHandler.put("Plan: " + CollectionManager.explain(query));
+            return;
+        }
+        if (context.params().contains("c")) {
+            outputHandler.put("Count: " + CollectionManager.count(query));
+            return;
+        }
+        var groups = CollectionManager.query(query);
+        var format = RecordFormat.of(context.params());
+        if (!format.isMachineReadable())
+            outputHandler.put("Query results");
+        var writer = format.writer(outputHandler);
+        writer.begin();
+        for (var it : groups) {
+            writer.write(it);
+        }
+        writer.end();
+    }
+}
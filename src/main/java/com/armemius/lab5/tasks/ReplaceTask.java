@@ -1,6 +1,7 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.InlineRecord;
 import com.armemius.lab5.collection.data.StudyGroup;
 import com.armemius.lab5.commands.CommandContext;
 import com.armemius.lab5.commands.exceptions.CommandArgumentException;
@@ -43,8 +44,9 @@ public class ReplaceTask extends RequestTask {
         if (context.params().contains("h")) {
             outputHandler.put("""
                         Syntax:
-                        > replace <id>
+                        > replace <id> [record]
                         Command responsive for replacement of element from collection
+                        New group can be provided in one line as JSON or key=value pairs, see 'insert --help'
                         PARAMS:
                         -h / --help\tShow this menu
                         -l / --lower\tReplaces element if value lower than specified (default - id)
@@ -63,7 +65,10 @@ public class ReplaceTask extends RequestTask {
             throw new CommandArgumentException("Can't apply comparator modifiers to id");
         try {
             int id = Integer.parseInt(context.args().get(0));
-            StudyGroup group = requestGroup(inputHandler, outputHandler);
+            var record = getInlineRecord(context, 1);
+            StudyGroup group = record != null
+                    ? InlineRecord.parse(record)
+                    : requestGroup(inputHandler, outputHandler);
             String fieldName = "getId";
             Class type = Integer.class;;
             if ((context.params().contains("s"))) {
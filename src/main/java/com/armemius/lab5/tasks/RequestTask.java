@@ -1,22 +1,39 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.InlineRecord;
 import com.armemius.lab5.collection.data.*;
 import com.armemius.lab5.commands.CommandContext;
-import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
 import com.armemius.lab5.io.InputHandler;
 import com.armemius.lab5.io.OutputHandler;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+
 /**
  * <b>Request</b> class represents tasks for commands with data input (e.g. {@link StudyGroup})
  */
 public abstract class RequestTask extends InputTask {
+    /**
+     * Auxiliary function, finds inline record in the arguments of the command,
+     * see {@link InlineRecord} for the formats. Record is taken from the arguments
+     * as they are, so it is the same for the console and for datagrams
+     * @param context Context of the command
+     * @param from Index of the first argument that belongs to the record
+     * @return Arguments of the record or null if it wasn't provided
+     */
+    protected List<String> getInlineRecord(CommandContext context, int from) {
+        var args = context.args();
+        return args.size() > from ? args.subList(from, args.size()) : null;
+    }
+
     /**
      * Auxiliary function, contains logic
-     * for inputting and creating new {@link StudyGroup}
+     * for inputting and creating new {@link StudyGroup}. Group doesn't get an id here,
+     * it is given by {@link CollectionManager} when the group is put into the collection,
+     * because other sessions may change the collection while the fields are entered
      */
     protected StudyGroup requestGroup(InputHandler inputHandler, OutputHandler outputHandler) {
-        Integer id = CollectionManager.genId();
         outputHandler.hold("Input group name (String): ");
         String groupName = getString(inputHandler, false);
         outputHandler.hold("Input group x coordinate (Integer): ");
@@ -33,7 +50,16 @@ public abstract class RequestTask extends InputTask {
         outputHandler.hold("Input current semester (Variants: SECOND/THIRD/SEVENTH/EIGHT, value can be empty): ");
         Semester semester = getEnumField(Semester.class, inputHandler, true);
         Person admin = requestAdmin(inputHandler, outputHandler);
-        return new StudyGroup(id, groupName, coordinates, students, expelled, mark, semester, admin);
+        var group = new StudyGroup();
+        group.setName(groupName);
+        group.setCoordinates(coordinates);
+        group.setCreationDate(ZonedDateTime.now());
+        group.setStudentsCount(students);
+        group.setExpelledStudents(expelled);
+        group.setAverageMark(mark);
+        group.setSemesterEnum(semester);
+        group.setGroupAdmin(admin);
+        return group;
     }
 
     /**
@@ -0,0 +1,31 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+
+@Parametrized
+public class RollbackTask implements Task {
+    /**
+     * Action for <b>rollback</b> command
+     * Doesn't receive arguments
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler output = context.outputHandler();
+        if (context.params().contains("h")) {
+            output.put("""
+                        Syntax:
+                        > rollback
+                        Command discards all the changes of the transaction
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        """);
+            return;
+        }
+        int changes = CollectionManager.rollback();
+        output.put("Transaction rolled back, " + changes + " change(s) discarded");
+    }
+}
@@ -2,12 +2,24 @@ package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
 import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.params.Conflict;
 import com.armemius.lab5.commands.params.Param;
 import com.armemius.lab5.commands.params.Parametrized;
 import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.format.RecordFormat;
 import com.armemius.lab5.tasks.Task;
 
-@Parametrized
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "j", name = "json"),
+                @Param(letter = "v", name = "csv"),
+                @Param(letter = "t", name = "table")
+        },
+        incompatible = {
+                @Conflict({"j", "v", "t"})
+        }
+)
 public class ShowTask implements Task {
     /**
      * Action for <b>show</b> command
@@ -24,17 +36,21 @@ public class ShowTask implements Task {
                         Shows elements in collection
                         PARAMS:
                         -h / --help\t\tShow this menu
+                        -j / --json\tOutput groups as JSON, one object per line
+                        -v / --csv\tOutput groups as CSV with header
+                        -t / --table\tOutput groups as table
                         """);
             return;
         }
-        var groups = CollectionManager.getAll();
-        if (groups.isEmpty()) {
+        var format = RecordFormat.of(context.params());
+        if (CollectionManager.getElementsCount() == 0 && !format.isMachineReadable()) {
             output.put("Collection is empty");
             return;
         }
-        output.put("Collection elements:");
-        for (var it : groups) {
-            output.put(it.toString());
-        }
+        if (!format.isMachineReadable())
+            output.put("Collection elements:");
+        var writer = format.writer(output);
+        writer.begin();
+        output.stream(CollectionManager.publish(), writer::write, writer::end);
     }
 }
@@ -0,0 +1,57 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.params.Param;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+
+import java.util.List;
+
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "g", name = "histogram")
+        }
+)
+public class StatsTask implements Task {
+    /**
+     * Action for <b>stats</b> command
+     * Receives up to one argument
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler outputHandler = context.outputHandler();
+        if (context.params().contains("h")) {
+            outputHandler.put("""
+                        Syntax:
+                        > stats [field]
+                        This command outputs min, max, mean and variance of studentsCount, expelledStudents and averageMark
+                        PARAMS:
+                        -h / --help\t\tShow this menu
+                        -g / --histogram\tAlso output histogram of values
+                        """);
+            return;
+        }
+        List<GroupField> fields = context.args().isEmpty()
+                ? CollectionManager.getStatisticsFields()
+                : List.of(GroupField.byPath(context.args().get(0)));
+        for (var field : fields) {
+            var stats = CollectionManager.getStatistics(field);
+            outputHandler.put("Statistics for " + field + ":");
+            outputHandler.put("Count:\t\t" + stats.count());
+            outputHandler.put("Min:\t\t" + stats.min());
+            outputHandler.put("Max:\t\t" + stats.max());
+            outputHandler.put("Mean:\t\t" + stats.mean());
+            outputHandler.put("Variance:\t" + stats.variance());
+            if (context.params().contains("g")) {
+                outputHandler.put("Histogram:");
+                for (var it : stats.histogram().entrySet()) {
+                    outputHandler.put("[" + it.getKey() + ", " + (it.getKey() + stats.bucketWidth()) + ")\t" + it.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.armemius.lab5.tasks;
+
+import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.GroupField;
+import com.armemius.lab5.commands.CommandContext;
+import com.armemius.lab5.commands.exceptions.CommandArgumentException;
+import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.commands.params.Conflict;
+import com.armemius.lab5.commands.params.Param;
+import com.armemius.lab5.commands.params.Parametrized;
+import com.armemius.lab5.io.OutputHandler;
+import com.armemius.lab5.io.format.RecordFormat;
+
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "a", name = "asc"),
+                @Param(letter = "j", name = "json"),
+                @Param(letter = "v", name = "csv"),
+                @Param(letter = "t", name = "table")
+        },
+        incompatible = {
+                @Conflict({"j", "v", "t"})
+        }
+)
+public class TopTask implements Task {
+    /**
+     * Action for <b>top</b> command
+     * Receives two arguments
+     * @param context
+     */
+    @Override
+    public void execute(CommandContext context) {
+        OutputHandler outputHandler = context.outputHandler();
+        if (context.params().contains("h")) {
+            outputHandler.put("""
+                        Syntax:
+                        > top <k> <field>
+                        This command outputs k groups with the greatest values of the field
+                        Field is specified by its path, e.g. averageMark or groupAdmin.height
+                        PARAMS:
+                        -h / --help\tShow this menu
+                        -a / --asc\tOutput groups with the lowest values instead
+                        -j / --json\tOutput groups as JSON, one object per line
+                        -v / --csv\tOutput groups as CSV with header
+                        -t / --table\tOutput groups as table
+                        """);
+            return;
+        }
+        if (context.args().size() < 2)
+            throw new CommandArgumentException("Argument wasn't provided");
+        try {
+            int k = Integer.parseInt(context.args().get(0));
+            if (k < 1)
+                throw new CommandRuntimeException("Incorrect value type provided");
+            var field = GroupField.byPath(context.args().get(1));
+            boolean ascending = context.params().contains("a");
+            var groups = CollectionManager.top(field, k, ascending);
+            var format = RecordFormat.of(context.params());
+            if (!format.isMachineReadable())
+                outputHandler.put("Top " + k + " by " + field + (ascending ? " (ascending)" : ""));
+            var writer = format.writer(outputHandler);
+            writer.begin();
+            for (var it : groups) {
+                writer.write(it);
+            }
+            writer.end();
+        }
+        catch (NumberFormatException ex) {
+            throw new CommandRuntimeException("Incorrect value type provided");
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.armemius.lab5.tasks;
 
 import com.armemius.lab5.collection.CollectionManager;
+import com.armemius.lab5.collection.InlineRecord;
 import com.armemius.lab5.collection.data.StudyGroup;
 import com.armemius.lab5.commands.CommandContext;
 import com.armemius.lab5.commands.exceptions.CommandRuntimeException;
+import com.armemius.lab5.commands.params.Param;
 import com.armemius.lab5.commands.params.Parametrized;
 import com.armemius.lab5.io.InputHandler;
 import com.armemius.lab5.io.OutputHandler;
 
-@Parametrized
+@Parametrized(
+        params = {
+                @Param(letter = "h", name = "help"),
+                @Param(letter = "y", name = "yes")
+        }
+)
 public class UpdateTask extends RequestTask {
     /**
      * Action for <b>update</b> command
@@ -22,10 +29,12 @@ public class UpdateTask extends RequestTask {
         if (context.params().contains("h")) {
             outputHandler.put("""
                         Syntax:
-                        > update <id>
+                        > update <id> [record]
                         Command responsive for updating collection
+                        New group can be provided in one line as JSON or key=value pairs, see 'insert --help'
                         PARAMS:
                         -h / --help\tShow this menu
+                        -y / --yes\tDon't ask for confirmation
                         """);
             return;
         }
@@ -34,16 +43,28 @@ public class UpdateTask extends RequestTask {
             if (!CollectionManager.checkId(id))
                 throw new CommandRuntimeException("Collection manager doesn't have element with such id");
             outputHandler.put("Updating element with id " + id);
+            boolean confirmed = context.params().contains("y");
+            var record = getInlineRecord(context, 1);
             StudyGroup group = null;
+            if (record != null) {
+                group = InlineRecord.parse(record);
+                if (!confirmed) {
+                    outputHandler.put("You want to update group with id " + id + " with the following group: " + group);
+                    if (!confirm(inputHandler, outputHandler, "Proceed? (Input empty line if yes) ")) {
+                        outputHandler.put("Operation aborted");
+                        return;
+                    }
+                }
+            }
             while (group == null) {
                 group = requestGroup(inputHandler, outputHandler);
-                group.setId(id);
                 outputHandler.put("You want to update group with id " + id + " with the following group: " + group);
-                outputHandler.hold("Proceed? (Input empty line if yes) ");
-                String response = inputHandler.get();
-                if (!response.isBlank())
+                if (!confirmed && !confirm(inputHandler, outputHandler, "Proceed? (Input empty line if yes) "))
                     group = null;
             }
+            // other sessions could change the collection while the group was entered
+            if (!CollectionManager.checkId(id))
+                throw new CommandRuntimeException("Element with id " + id + " was removed while the new group was entered");
             CollectionManager.update(id, group);
         }
         catch (NumberFormatException ex) {